@@ -2,9 +2,11 @@ package org.example.brainbuster;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 
 @SpringBootApplication
+@EnableScheduling
 public class BrainbusterApplication {
 	public static void main(String[] args) {
 		SpringApplication.run(BrainbusterApplication.class, args);
@@ -0,0 +1,26 @@
+package org.example.brainbuster.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "catalog")
+public class CatalogProperties {
+    /** Local file for the binary catalog snapshot; blank disables snapshots. */
+    private String snapshotPath;
+    /** Snapshots older than this are ignored and the catalog is read from the database instead. */
+    private Duration snapshotMaxAge = Duration.ofDays(1);
+    /** Upper bound of the random delay before a node started from a snapshot re-reads the database. */
+    private Duration reconcileJitter = Duration.ofMinutes(2);
+    /**
+     * How far back each refresh re-reads the change log, so writes that committed after a later write
+     * was read are not missed. Must exceed the longest write transaction.
+     */
+    private Duration changeOverlap = Duration.ofSeconds(30);
+    /** Change log rows older than this are deleted; a node further behind reloads the whole catalog. */
+    private Duration changeRetention = Duration.ofDays(1);
+}
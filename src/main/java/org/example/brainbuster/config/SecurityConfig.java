@@ -2,6 +2,7 @@ package org.example.brainbuster.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 
@@ -32,7 +33,7 @@ public class SecurityConfig {
                 "https://brainbuster.davidzus.de"
                 // ,"http://localhost:5173"
         ));
-        c.setAllowedMethods(java.util.List.of("GET","POST","PUT","DELETE","OPTIONS"));
+        c.setAllowedMethods(java.util.List.of("GET","POST","PUT","PATCH","DELETE","OPTIONS"));
         c.setAllowedHeaders(java.util.List.of("*"));
         c.setAllowCredentials(true);
 
@@ -83,9 +84,13 @@ public class SecurityConfig {
                         .requestMatchers("/api/users/highscores").hasAnyRole(ROLE_USER,ROLE_ADMIN)
                         .requestMatchers("/api/users/userhighscore").hasAnyRole(ROLE_USER,ROLE_ADMIN)
                         .requestMatchers("/api/users/**").hasRole(ROLE_ADMIN)
+                        .requestMatchers(HttpMethod.PATCH, "/api/questions").hasRole(ROLE_ADMIN)
                         .requestMatchers("/api/questions").hasAnyRole(ROLE_USER,ROLE_ADMIN)
+                        .requestMatchers(HttpMethod.GET, "/api/questions/facets").hasAnyRole(ROLE_USER,ROLE_ADMIN)
                         .requestMatchers("/api/questions/**").hasAnyRole(ROLE_ADMIN)
+                        .requestMatchers(HttpMethod.POST, "/api/sp/sessions/*/abort").hasRole(ROLE_ADMIN)
                         .requestMatchers("/api/sp/**").hasAnyRole(ROLE_USER,ROLE_ADMIN)
+                        .requestMatchers("/actuator/**").hasRole(ROLE_ADMIN)
                         .anyRequest().authenticated()
                 )
                 .formLogin(AbstractHttpConfigurer::disable)
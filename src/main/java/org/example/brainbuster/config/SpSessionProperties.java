@@ -0,0 +1,42 @@
+package org.example.brainbuster.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "sp.sessions")
+public class SpSessionProperties {
+    /** Sessions not touched for this long are dropped, unless finished. */
+    private Duration idleTtl = Duration.ofMinutes(30);
+    /** Finished sessions stay readable (summary) for this long after their last access. */
+    private Duration finishedTtl = Duration.ofMinutes(5);
+    /** Hard cap on live sessions per node; the least recently used ones are evicted beyond it. */
+    private int maxSessions = 100_000;
+    /** Unfinished sessions one player may have at a time; 0 means no limit. Applies to server-side sessions only. */
+    private int maxActivePerPlayer = 3;
+    /** What creating one more session beyond {@link #maxActivePerPlayer} does. */
+    private PlayerLimitPolicy playerLimitPolicy = PlayerLimitPolicy.CANCEL_OLDEST;
+    /** Least time an offline game's answer may claim to have taken. */
+    private Duration offlineMinAnswerTime = Duration.ofMillis(500);
+    /**
+     * {@code memory} (default) keeps sessions on this node only; {@code jdbc} also stores every change in the
+     * database before answering, so any node can serve any session.
+     */
+    private String store = "memory";
+    /** Local file live sessions are written to on shutdown and restored from on startup; blank disables it. */
+    private String snapshotPath;
+    /** Snapshots older than this are discarded on startup. */
+    private Duration snapshotMaxAge = Duration.ofMinutes(10);
+    /** Upper bound on the snapshot file; the least recently used sessions are left out beyond it. */
+    private DataSize snapshotMaxSize = DataSize.ofMegabytes(64);
+
+    public enum PlayerLimitPolicy {
+        CANCEL_OLDEST,   // cancel the player's least recently used sessions to make room
+        REJECT           // answer 429
+    }
+}
@@ -2,16 +2,32 @@ package org.example.brainbuster.controller;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.example.brainbuster.dto.question.BulkResult;
+import org.example.brainbuster.dto.question.IngestResult;
 import org.example.brainbuster.dto.question.QuestionCreateDto;
+import org.example.brainbuster.dto.question.QuestionCursorPage;
+import org.example.brainbuster.dto.question.QuestionFacet;
+import org.example.brainbuster.dto.question.QuestionPatchDto;
 import org.example.brainbuster.dto.question.QuestionReadDto;
-import org.example.brainbuster.model.Question;
 import org.example.brainbuster.dto.question.QuestionUpdateDto;
+import org.example.brainbuster.service.QuestionETags;
+import org.example.brainbuster.service.QuestionIngestService;
 import org.example.brainbuster.service.QuestionService;
 
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 @CrossOrigin(origins = "http://localhost:5173")
 @RestController
@@ -19,10 +35,19 @@ import java.util.List;
 @RequiredArgsConstructor
 public class QuestionController {
     private final QuestionService questionService;
+    private final QuestionIngestService questionIngestService;
 
     @GetMapping
-    public List<Question> getAllQuestions() {
-        return questionService.getAllQuestions();
+    public ResponseEntity<Object> getAllQuestions(
+            @RequestParam(value = "page", required = false) Integer page,
+            @RequestParam(value = "size", required = false) Integer size
+    ) {
+        if (page == null && size == null) {
+            return ResponseEntity.ok(questionService.getAllQuestions());
+        }
+        int p = page == null ? 0 : page;
+        int s = size == null ? 100 : size;
+        return ResponseEntity.ok(questionService.getQuestions(p, s));
     }
 
     @GetMapping("/search")
@@ -33,26 +58,78 @@ public class QuestionController {
             @RequestParam(value = "q",          required = false) String freeText,
             @RequestParam(value = "page",       required = false) Integer page,
             @RequestParam(value = "size",       required = false) Integer size,
-            @RequestParam(value = "sort",       required = false) String sort
+            @RequestParam(value = "sort",       required = false) String sort,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
     ) {
+        String etag = questionService.searchETag(category, difficulty, type, freeText, page, size, sort);
+        if (QuestionETags.matches(ifNoneMatch, etag)) {
+            return revalidate(HttpStatus.NOT_MODIFIED, etag).build();
+        }
         if (page == null && size == null) {
             var results = questionService
                     .search(category, difficulty, type, freeText, 0, 1000, sort)
                     .getContent();
-            return ResponseEntity.ok(results);
+            return revalidate(HttpStatus.OK, etag).body(results);
         } else {
             int p = page == null ? 0 : page;
             int s = size == null ? 20 : size;
-            return ResponseEntity.ok(
+            return revalidate(HttpStatus.OK, etag).body(
                     questionService.search(category, difficulty, type, freeText, p, s, sort)
             );
         }
     }
 
+    @GetMapping(value = "/search", params = "cursor")
+    public QuestionCursorPage searchByCursor(
+            @RequestParam(value = "category",   required = false) String category,
+            @RequestParam(value = "difficulty", required = false) String difficulty,
+            @RequestParam(value = "type",       required = false) String type,
+            @RequestParam(value = "q",          required = false) String freeText,
+            @RequestParam(value = "cursor") String cursor,
+            @RequestParam(value = "size",       required = false) Integer size,
+            @RequestParam(value = "sort",       required = false) String sort
+    ) {
+        int s = size == null ? 20 : size;
+        return questionService.searchAfter(category, difficulty, type, freeText, cursor, s, sort);
+    }
+
+    @GetMapping("/facets")
+    public List<QuestionFacet> getFacets() {
+        return questionService.getFacets();
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(value = "gzip", defaultValue = "false") boolean gzip
+    ) {
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                try (var zipped = new GZIPOutputStream(out, 64 * 1024)) {
+                    questionService.exportNdjson(zipped);
+                }
+            } else {
+                questionService.exportNdjson(out);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=questions.ndjson" + (gzip ? ".gz" : ""))
+                .body(body);
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<QuestionReadDto> getQuestionById(@PathVariable("id") Long id) {
+    public ResponseEntity<QuestionReadDto> getQuestionById(
+            @PathVariable("id") Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         return questionService.getQuestionByIdDto(id)
-                .map(ResponseEntity::ok)
+                .map(dto -> {
+                    String etag = QuestionETags.of(dto);
+                    if (QuestionETags.matches(ifNoneMatch, etag)) {
+                        return revalidate(HttpStatus.NOT_MODIFIED, etag).<QuestionReadDto>build();
+                    }
+                    return revalidate(HttpStatus.OK, etag).body(dto);
+                })
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -63,6 +140,28 @@ public class QuestionController {
         return questionService.toReadDto(saved);
     }
 
+    @PostMapping("/bulk")
+    public BulkResult importQuestions(@RequestBody List<QuestionCreateDto> body) {
+        return questionService.importQuestions(body);
+    }
+
+    /**
+     * Streams an OpenTDB-style pack from the request body; send it with Content-Encoding: gzip to save bandwidth.
+     */
+    @PostMapping(value = "/ingest", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public IngestResult ingest(
+            InputStream body,
+            @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String encoding
+    ) throws IOException {
+        InputStream in = "gzip".equalsIgnoreCase(encoding) ? new GZIPInputStream(body, 64 * 1024) : body;
+        return questionIngestService.ingest(in);
+    }
+
+    @PatchMapping
+    public BulkResult patchQuestions(@RequestBody List<QuestionPatchDto> body) {
+        return questionService.patchQuestions(body);
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<QuestionReadDto> updateQuestion(
             @PathVariable("id") Long id,
@@ -84,4 +183,17 @@ public class QuestionController {
             return ResponseEntity.notFound().build();
         }
     }
+
+    // Questions are unique by content; a write that would store one twice conflicts with the existing row.
+    // Other integrity violations are not conflicts and stay server errors.
+    @ExceptionHandler(DuplicateKeyException.class)
+    public ResponseEntity<Void> duplicateQuestion() {
+        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+
+    // Clients may keep the response but have to revalidate it with If-None-Match before reuse.
+    private static ResponseEntity.BodyBuilder revalidate(HttpStatus status, String etag) {
+        var builder = ResponseEntity.status(status).cacheControl(CacheControl.noCache().cachePrivate());
+        return etag == null ? builder : builder.eTag(etag);
+    }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package org.example.brainbuster.controller;
 
 import org.example.brainbuster.dto.game.*;
 import org.example.brainbuster.service.SpSessionService;
+import org.example.brainbuster.service.TokenSpSessionService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -10,6 +11,7 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
+import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -17,10 +19,14 @@ import java.util.UUID;
 @Validated
 public class SpGameController {
 
+    static final String TOKEN_HEADER = "X-Sp-Session-Token";
+
     private final SpSessionService service;
+    private final TokenSpSessionService tokenSessions;
 
-    public SpGameController(SpSessionService service) {
+    public SpGameController(SpSessionService service, TokenSpSessionService tokenSessions) {
         this.service = service;
+        this.tokenSessions = tokenSessions;
     }
 
     @PostMapping
@@ -29,11 +35,26 @@ public class SpGameController {
             @Valid @RequestBody CreateSpSessionRequest req
     ) {
         String username = principal.getUsername();
+        if (req.mode() == SessionMode.TOKEN) {
+            var t = tokenSessions.create(req, username);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(new CreateSpSessionResponse(t.id(), t.state(), t.totalQuestions(), t.token()));
+        }
+        if (req.mode() == SessionMode.OFFLINE) {
+            var o = service.createOffline(req, username);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(new CreateSpSessionResponse(o.id(), o.state(), o.totalQuestions(), null, o.deck()));
+        }
         var s = service.create(req, username);
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(new CreateSpSessionResponse(s.id(), s.state(), s.totalQuestions()));
     }
 
+    @GetMapping("/active")
+    public List<SessionSummary> active(@AuthenticationPrincipal UserDetails principal) {
+        return service.active(principal.getUsername()).stream().map(SpGameController::toSummary).toList();
+    }
+
     @PostMapping("/{id}/start")
     public StartSpResponse start(@PathVariable UUID id) {
         var q = service.start(id);
@@ -47,12 +68,57 @@ public class SpGameController {
 
     @PostMapping("/{id}/answer")
     public AnswerResponse answer(@PathVariable UUID id, @Valid @RequestBody AnswerRequest req) {
-        return service.answer(id, req.choiceId());
+        return service.answer(id, req.choiceId(), req.index());
     }
 
     @GetMapping("/{id}")
     public SessionSummary summary(@PathVariable UUID id) {
-        var s = service.summary(id);
+        return toSummary(service.summary(id));
+    }
+
+    @PostMapping("/{id}/submit")
+    public SubmitResponse submit(@AuthenticationPrincipal UserDetails principal, @PathVariable UUID id,
+                                 @Valid @RequestBody SubmitRequest req) {
+        return service.submit(id, principal.getUsername(), req.answers());
+    }
+
+    // TOKEN mode: same paths, state taken from the X-Sp-Session-Token header
+
+    @PostMapping(value = "/{id}/start", headers = TOKEN_HEADER)
+    public StartSpResponse startWithToken(@AuthenticationPrincipal UserDetails principal, @PathVariable UUID id,
+                                          @RequestHeader(TOKEN_HEADER) String token) {
+        return tokenSessions.start(id, token, principal.getUsername());
+    }
+
+    @GetMapping(value = "/{id}/current", headers = TOKEN_HEADER)
+    public QuestionPayload currentWithToken(@AuthenticationPrincipal UserDetails principal, @PathVariable UUID id,
+                                            @RequestHeader(TOKEN_HEADER) String token) {
+        return tokenSessions.current(id, token, principal.getUsername());
+    }
+
+    @PostMapping(value = "/{id}/answer", headers = TOKEN_HEADER)
+    public AnswerResponse answerWithToken(@AuthenticationPrincipal UserDetails principal, @PathVariable UUID id,
+                                          @RequestHeader(TOKEN_HEADER) String token, @Valid @RequestBody AnswerRequest req) {
+        return tokenSessions.answer(id, token, principal.getUsername(), req.choiceId());
+    }
+
+    @GetMapping(value = "/{id}", headers = TOKEN_HEADER)
+    public SessionSummary summaryWithToken(@AuthenticationPrincipal UserDetails principal, @PathVariable UUID id,
+                                           @RequestHeader(TOKEN_HEADER) String token) {
+        return toSummary(tokenSessions.summary(id, token, principal.getUsername()));
+    }
+
+    @PostMapping("/{id}/cancel")
+    public SessionSummary cancel(@AuthenticationPrincipal UserDetails principal, @PathVariable UUID id) {
+        return toSummary(service.cancel(id, principal.getUsername()));
+    }
+
+    @PostMapping("/{id}/abort")
+    public SessionSummary abort(@PathVariable UUID id) {
+        return toSummary(service.abort(id));
+    }
+
+    private static SessionSummary toSummary(SpSessionService.Summary s) {
         return new SessionSummary(s.id(), s.state(), s.currentIndex(), s.totalQuestions(), s.answered(), s.correctAnswers());
     }
-}
\ No newline at end of file
+}
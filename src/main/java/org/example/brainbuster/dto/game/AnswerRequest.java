@@ -6,5 +6,11 @@ import jakarta.validation.constraints.NotBlank;
 public record AnswerRequest(
         @NotBlank
         @Schema(example = "7b8e8c2f-3d1b-4a92-8c0a-0f1d2e3c4b5a")
-        String choiceId
-) {}
+        String choiceId,
+        @Schema(description = "Index of the question being answered; rejected with 409 if it is no longer current")
+        Integer index
+) {
+    public AnswerRequest(String choiceId) {
+        this(choiceId, null);
+    }
+}
@@ -1,9 +1,17 @@
 package org.example.brainbuster.dto.game;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 public record AnswerResponse(
         boolean correct,
         int index,             // index of the answered question
         Integer nextIndex,     // null if finished
         SessionState state,    // RUNNING or FINISHED
-        QuestionPayload next   // null if finished
-) {}
+        QuestionPayload next,  // null if finished
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        String token           // TOKEN mode only: replaces the token the answer was sent with
+) {
+    public AnswerResponse(boolean correct, int index, Integer nextIndex, SessionState state, QuestionPayload next) {
+        this(correct, index, nextIndex, state, next, null);
+    }
+}
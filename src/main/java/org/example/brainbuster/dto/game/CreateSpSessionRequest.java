@@ -8,5 +8,10 @@ import jakarta.validation.constraints.Min;
 public record CreateSpSessionRequest(
         @Schema(example = "10") @Min(1) @Max(100) int numQuestions,
         @Schema(example = "General Knowledge") String category,
-        @Schema(example = "EASY") String difficulty
-) {}
+        @Schema(example = "EASY") String difficulty,
+        @Schema(description = "Where the game state lives; defaults to SERVER") SessionMode mode
+) {
+    public CreateSpSessionRequest(int numQuestions, String category, String difficulty) {
+        this(numQuestions, category, difficulty, null);
+    }
+}
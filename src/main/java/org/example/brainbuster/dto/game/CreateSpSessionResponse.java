@@ -1,12 +1,28 @@
 package org.example.brainbuster.dto.game;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.v3.oas.annotations.media.Schema;
 
+import java.util.List;
 import java.util.UUID;
 
 public record CreateSpSessionResponse(
         @Schema(example = "c0a8017b-5e32-4b1f-9a5a-2b0e4d9f0a8a")
         UUID sessionId,
         SessionState state,
-        int totalQuestions
-) {}
+        int totalQuestions,
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        @Schema(description = "TOKEN mode only: send back as X-Sp-Session-Token")
+        String token,
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        @Schema(description = "OFFLINE mode only: every question of the game")
+        List<OfflineQuestion> deck
+) {
+    public CreateSpSessionResponse(UUID sessionId, SessionState state, int totalQuestions) {
+        this(sessionId, state, totalQuestions, null, null);
+    }
+
+    public CreateSpSessionResponse(UUID sessionId, SessionState state, int totalQuestions, String token) {
+        this(sessionId, state, totalQuestions, token, null);
+    }
+}
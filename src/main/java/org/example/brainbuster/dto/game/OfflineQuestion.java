@@ -0,0 +1,12 @@
+package org.example.brainbuster.dto.game;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "One question of an offline deck")
+public record OfflineQuestion(
+        QuestionPayload question,
+        @Schema(description = "Per choice, in the same order: base64url(SHA-256(salt + \":\" + choiceId + \":\" + (correct ? \"1\" : \"0\"))); salts are revealed on submit")
+        List<String> commitments
+) {}
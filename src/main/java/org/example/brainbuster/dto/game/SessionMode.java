@@ -0,0 +1,7 @@
+package org.example.brainbuster.dto.game;
+
+public enum SessionMode {
+    SERVER,   // state kept by the server, addressed by session id
+    TOKEN,    // state carried in a signed X-Sp-Session-Token, nothing kept server-side
+    OFFLINE   // whole deck handed out on create, all answers scored in one submit
+}
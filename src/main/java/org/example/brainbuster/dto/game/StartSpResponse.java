@@ -1,6 +1,14 @@
 package org.example.brainbuster.dto.game;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 public record StartSpResponse(
         SessionState state,
-        QuestionPayload current
-) {}
+        QuestionPayload current,
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        String token           // TOKEN mode only
+) {
+    public StartSpResponse(SessionState state, QuestionPayload current) {
+        this(state, current, null);
+    }
+}
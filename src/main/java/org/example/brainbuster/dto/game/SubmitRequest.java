@@ -0,0 +1,20 @@
+package org.example.brainbuster.dto.game;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+@Schema(description = "Every answer of an offline game")
+public record SubmitRequest(
+        @NotEmpty @Valid List<Answer> answers
+) {
+    public record Answer(
+            @Min(0) int index,
+            @NotBlank String choiceId,
+            @Schema(description = "Time the player spent on this question") @Min(0) long elapsedMs
+    ) {}
+}
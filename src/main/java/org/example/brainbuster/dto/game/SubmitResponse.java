@@ -0,0 +1,23 @@
+package org.example.brainbuster.dto.game;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+import java.util.UUID;
+
+public record SubmitResponse(
+        UUID sessionId,
+        SessionState state,
+        int correctAnswers,
+        int totalQuestions,
+        List<Result> results
+) {
+    public record Result(
+            int index,
+            String choiceId,
+            boolean correct,
+            String correctChoiceId,
+            @Schema(description = "Salts of the question's choices, in deck order, to check the commitments")
+            List<String> salts
+    ) {}
+}
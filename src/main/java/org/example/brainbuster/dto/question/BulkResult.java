@@ -0,0 +1,13 @@
+package org.example.brainbuster.dto.question;
+
+import java.util.List;
+
+public record BulkResult(
+        int succeeded,
+        List<RowError> errors
+) {
+    public record RowError(
+            int index,      // 0-based position in the request
+            String message
+    ) {}
+}
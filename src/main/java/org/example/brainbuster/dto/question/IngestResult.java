@@ -0,0 +1,11 @@
+package org.example.brainbuster.dto.question;
+
+import java.util.List;
+
+public record IngestResult(
+        int read,
+        int inserted,
+        int duplicates,
+        int rejected,
+        List<BulkResult.RowError> errors   // first rejected rows only
+) {}
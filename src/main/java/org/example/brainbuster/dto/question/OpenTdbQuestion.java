@@ -0,0 +1,19 @@
+package org.example.brainbuster.dto.question;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * One entry of an OpenTDB-style question pack.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record OpenTdbQuestion(
+        String type,
+        String difficulty,
+        String category,
+        String question,
+        @JsonProperty("correct_answer") String correctAnswer,
+        @JsonProperty("incorrect_answers") List<String> incorrectAnswers
+) {}
@@ -0,0 +1,8 @@
+package org.example.brainbuster.dto.question;
+
+import java.util.List;
+
+public record QuestionCursorPage(
+        List<QuestionReadDto> content,
+        String next     // null on the last page
+) {}
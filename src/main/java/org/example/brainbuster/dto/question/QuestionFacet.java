@@ -0,0 +1,8 @@
+package org.example.brainbuster.dto.question;
+
+public record QuestionFacet(
+        String category,
+        String difficulty,
+        String type,
+        int count
+) {}
@@ -0,0 +1,16 @@
+package org.example.brainbuster.dto.question;
+
+import java.util.List;
+
+/**
+ * Partial edit of one question; null fields are left unchanged.
+ */
+public record QuestionPatchDto(
+        Long id,
+        String type,
+        String difficulty,
+        String category,
+        String question,
+        String correctAnswer,
+        List<String> incorrectAnswers
+) {}
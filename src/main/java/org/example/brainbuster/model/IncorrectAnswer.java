@@ -3,9 +3,13 @@ package org.example.brainbuster.model;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "incorrect-answers")
 @Getter
 @Setter
 @NoArgsConstructor @AllArgsConstructor
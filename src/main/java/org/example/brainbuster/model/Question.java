@@ -2,12 +2,19 @@ package org.example.brainbuster.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "questions")
 @Getter
 @Setter
 @NoArgsConstructor @AllArgsConstructor
-@Table(name = "questions")
+@Table(name = "questions", indexes = {
+        @Index(name = "idx_questions_filter", columnList = "category_key, difficulty_key, type_key"),
+        @Index(name = "uk_questions_content_hash", columnList = "content_hash", unique = true)
+})
 @ToString(exclude = "incorrectAnswers")
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
 public class Question {
@@ -26,12 +33,29 @@ public class Question {
     @Column(name = "category", nullable = false, length = 100)
     private String category;
 
+    // Canonical lowercase copies maintained by MySQL; filters compare against these so the index applies.
+    @Column(name = "type_key", insertable = false, updatable = false,
+            columnDefinition = "varchar(50) GENERATED ALWAYS AS (lower(`type`)) STORED")
+    private String typeKey;
+
+    @Column(name = "difficulty_key", insertable = false, updatable = false,
+            columnDefinition = "varchar(50) GENERATED ALWAYS AS (lower(`difficulty`)) STORED")
+    private String difficultyKey;
+
+    @Column(name = "category_key", insertable = false, updatable = false,
+            columnDefinition = "varchar(100) GENERATED ALWAYS AS (lower(`category`)) STORED")
+    private String categoryKey;
+
     @Column(name = "question", nullable = false, columnDefinition = "TEXT")
     private String question;
 
     @Column(name = "correct_answer", nullable = false, columnDefinition = "TEXT")
     private String correctAnswer;
 
+    // SHA-256 hex of the normalized content, see QuestionContentHash; null until backfilled.
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
     @OneToMany(
             mappedBy = "question",
             cascade = {CascadeType.PERSIST, CascadeType.MERGE, CascadeType.REMOVE},
@@ -39,6 +63,7 @@ public class Question {
             fetch = FetchType.LAZY
     )
     @jakarta.persistence.OrderColumn(name = "position") // optional
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "question-incorrect-answers")
     private java.util.List<IncorrectAnswer> incorrectAnswers = new java.util.ArrayList<>();
 
     public void addIncorrectAnswer(IncorrectAnswer ia) {
@@ -0,0 +1,35 @@
+package org.example.brainbuster.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * One write to a question, recorded by {@code QuestionChangeLog} so that other nodes can update just
+ * that question in their catalog. Mapped here so the table is managed along with the rest of the schema.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor @AllArgsConstructor
+@Table(name = "question_changes", indexes = {
+        @Index(name = "idx_question_changes_changed_at", columnList = "changed_at")
+})
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class QuestionChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @EqualsAndHashCode.Include
+    private Long id;
+
+    @Column(name = "question_id", nullable = false)
+    private long questionId;
+
+    /** Node that made the write; it applies its own writes without reading them back. */
+    @Column(name = "node", nullable = false, length = 36)
+    private String node;
+
+    /** Epoch millis, by the database clock. */
+    @Column(name = "changed_at", nullable = false)
+    private long changedAt;
+}
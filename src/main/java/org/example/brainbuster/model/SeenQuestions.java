@@ -0,0 +1,35 @@
+package org.example.brainbuster.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ids of the questions a player has been dealt, as a serialized Roaring bitmap.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor @AllArgsConstructor
+@Table(name = "seen_questions")
+@ToString(exclude = "bitmap")
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class SeenQuestions {
+
+    @Id
+    @Column(name = "username", length = 191)
+    @EqualsAndHashCode.Include
+    private String username;
+
+    @Lob
+    @Column(name = "bitmap", nullable = false, columnDefinition = "MEDIUMBLOB")
+    private byte[] bitmap;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    /** Bumped by every write, so nodes merging their changes into the bitmap don't overwrite each other's. */
+    @Column(name = "version", nullable = false, columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private long version;
+}
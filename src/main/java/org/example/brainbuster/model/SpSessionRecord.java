@@ -0,0 +1,43 @@
+package org.example.brainbuster.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Persisted single-player session, written by {@code JdbcSessionStore}. Mapped here so the table is
+ * managed along with the rest of the schema; {@code data} holds the encoded session.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor @AllArgsConstructor
+@Table(name = "sp_sessions", indexes = {
+        @Index(name = "idx_sp_sessions_last_access", columnList = "last_access"),
+        @Index(name = "idx_sp_sessions_player", columnList = "player_username")
+})
+@ToString(exclude = "data")
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class SpSessionRecord {
+
+    @Id
+    @Column(name = "id", length = 36)
+    @EqualsAndHashCode.Include
+    private String id;
+
+    @Column(name = "player_username", length = 191)
+    private String playerUsername;
+
+    @Column(name = "state", nullable = false, length = 16)
+    private String state;
+
+    /** Epoch millis. */
+    @Column(name = "last_access", nullable = false)
+    private long lastAccess;
+
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    @Lob
+    @Column(name = "data", nullable = false, columnDefinition = "MEDIUMBLOB")
+    private byte[] data;
+}
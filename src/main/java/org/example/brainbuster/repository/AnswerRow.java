@@ -0,0 +1,3 @@
+package org.example.brainbuster.repository;
+
+public record AnswerRow(Long questionId, String text) {}
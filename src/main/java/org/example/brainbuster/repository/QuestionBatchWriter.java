@@ -0,0 +1,87 @@
+package org.example.brainbuster.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.example.brainbuster.model.IncorrectAnswer;
+import org.example.brainbuster.model.Question;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inserts new questions with plain JDBC batches. Hibernate cannot batch inserts for
+ * IDENTITY ids, but the MySQL driver can (rewriteBatchedStatements) and still returns the keys.
+ */
+@Repository
+@RequiredArgsConstructor
+public class QuestionBatchWriter {
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_QUESTION = """
+            INSERT INTO questions (type, difficulty, category, question, correct_answer, content_hash)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+    private static final String INSERT_ANSWER = """
+            INSERT INTO incorrect_answers (text, question_id, position)
+            VALUES (?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts the questions and their incorrect answers and assigns the generated question ids.
+     */
+    public void insertAll(List<Question> questions) {
+        for (int from = 0; from < questions.size(); from += BATCH_SIZE) {
+            insertChunk(questions.subList(from, Math.min(from + BATCH_SIZE, questions.size())));
+        }
+    }
+
+    private void insertChunk(List<Question> chunk) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(INSERT_QUESTION, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Question q = chunk.get(i);
+                        ps.setString(1, q.getType());
+                        ps.setString(2, q.getDifficulty());
+                        ps.setString(3, q.getCategory());
+                        ps.setString(4, q.getQuestion());
+                        ps.setString(5, q.getCorrectAnswer());
+                        ps.setString(6, q.getContentHash());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return chunk.size();
+                    }
+                },
+                keys);
+
+        List<Map<String, Object>> generated = keys.getKeyList();
+        if (generated.size() != chunk.size()) {
+            throw new IllegalStateException("Expected " + chunk.size() + " generated keys, got " + generated.size());
+        }
+
+        List<Object[]> answers = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            Question q = chunk.get(i);
+            q.setId(((Number) generated.get(i).values().iterator().next()).longValue());
+            List<IncorrectAnswer> wrongs = q.getIncorrectAnswers();
+            for (int pos = 0; pos < wrongs.size(); pos++) {
+                answers.add(new Object[]{wrongs.get(pos).getText(), q.getId(), pos});
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_ANSWER, answers);
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.brainbuster.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Append-only log of which questions were written by which node. Writers add one row per question in
+ * their own transaction; there is no shared counter, so concurrent writes don't contend on a row.
+ * Times come from the database clock, so nodes with skewed clocks still agree on them.
+ */
+@Repository
+@RequiredArgsConstructor
+public class QuestionChangeLog {
+
+    private static final String NOW_MILLIS = "ROUND(UNIX_TIMESTAMP(NOW(3)) * 1000)";
+
+    private static final String INSERT_CHANGE =
+            "INSERT INTO question_changes (question_id, node, changed_at) VALUES (?, ?, " + NOW_MILLIS + ")";
+
+    public record Change(long id, long questionId, long changedAt) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String node = UUID.randomUUID().toString();
+
+    public String node() {
+        return node;
+    }
+
+    /**
+     * Records a write to the given questions, in one batch, in the caller's transaction.
+     */
+    public void record(Collection<Long> questionIds) {
+        if (questionIds.isEmpty()) return;
+        jdbcTemplate.batchUpdate(INSERT_CHANGE, questionIds.stream().map(id -> new Object[]{id, node}).toList());
+    }
+
+    /**
+     * Current time by the database clock, in epoch millis.
+     */
+    public long now() {
+        Long now = jdbcTemplate.queryForObject("SELECT " + NOW_MILLIS, Long.class);
+        return now == null ? 0 : now;
+    }
+
+    /**
+     * Changes made by other nodes at or after {@code since}, oldest first.
+     */
+    public List<Change> othersSince(long since) {
+        return jdbcTemplate.query(
+                "SELECT id, question_id, changed_at FROM question_changes WHERE changed_at >= ? AND node <> ? ORDER BY id",
+                (rs, i) -> new Change(rs.getLong(1), rs.getLong(2), rs.getLong(3)),
+                since, node);
+    }
+
+    public int deleteBefore(long before) {
+        return jdbcTemplate.update("DELETE FROM question_changes WHERE changed_at < ?", before);
+    }
+}
@@ -1,34 +1,101 @@
 package org.example.brainbuster.repository;
 
+import jakarta.persistence.QueryHint;
 import org.example.brainbuster.model.Question;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface QuestionRepository extends JpaRepository<Question, Long> {
+public interface QuestionRepository extends JpaRepository<Question, Long>, QuestionRepositoryCustom {
     @EntityGraph(attributePaths = "incorrectAnswers")
     Optional<Question> findById(Long id);
 
+    // Full scan at startup; don't flood the second-level cache with it.
+    @EntityGraph(attributePaths = "incorrectAnswers")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE"))
+    @Query("SELECT q FROM Question q")
+    List<Question> findAllWithAnswers();
+
+    @EntityGraph(attributePaths = "incorrectAnswers")
+    List<Question> findAllByIdIn(Collection<Long> ids);
+
+    @Query("SELECT q.contentHash FROM Question q WHERE q.contentHash IN :hashes")
+    List<String> findExistingContentHashes(@Param("hashes") Collection<String> hashes);
+
     @Query("""
-        SELECT q FROM Question q
-        LEFT JOIN FETCH q.incorrectAnswers ia
-        WHERE (:category IS NULL OR LOWER(q.category) = LOWER(:category))
-          AND (:difficulty IS NULL OR LOWER(q.difficulty) = LOWER(:difficulty))
-          AND (:type IS NULL OR LOWER(q.type) = LOWER(:type))
-          AND (:q IS NULL OR LOWER(q.question) LIKE LOWER(CONCAT('%', :q, '%')))
+        SELECT new org.example.brainbuster.repository.ContentHashRow(q.contentHash, q.id)
+        FROM Question q
+        WHERE q.contentHash IN :hashes
+        """)
+    List<ContentHashRow> findContentHashOwners(@Param("hashes") Collection<String> hashes);
+
+    @Query("SELECT q.id FROM Question q WHERE q.contentHash IS NULL AND q.id > :afterId ORDER BY q.id")
+    List<Long> findIdsWithoutContentHash(@Param("afterId") long afterId, Pageable pageable);
+
+    @Query(value = """
+        SELECT new org.example.brainbuster.repository.QuestionRow(
+            q.id, q.type, q.difficulty, q.category, q.question, q.correctAnswer)
+        FROM Question q
+        """,
+        countQuery = "SELECT COUNT(q) FROM Question q")
+    Page<QuestionRow> findRows(Pageable pageable);
+
+    /**
+     * The next page of questions with an id above {@code afterId}, in id order. Plain rows, so walking
+     * the whole table leaves nothing in the persistence context.
+     */
+    @Query("""
+        SELECT new org.example.brainbuster.repository.QuestionRow(
+            q.id, q.type, q.difficulty, q.category, q.question, q.correctAnswer)
+        FROM Question q
+        WHERE q.id > :afterId
+        ORDER BY q.id
+        """)
+    List<QuestionRow> findRowsAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Incorrect answers of the given questions, grouped by question and in list order.
+     */
+    @Query("""
+        SELECT new org.example.brainbuster.repository.AnswerRow(q.id, ia.text)
+        FROM Question q JOIN q.incorrectAnswers ia
+        WHERE q.id IN :ids
+        ORDER BY q.id, INDEX(ia)
+        """)
+    List<AnswerRow> findAnswerRows(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Category, difficulty and type must already be lowercased to match the key columns.
+     * Results go to the query cache when it is enabled.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query(value = """
+        SELECT q.id FROM Question q
+        WHERE (:category IS NULL OR q.categoryKey = :category)
+          AND (:difficulty IS NULL OR q.difficultyKey = :difficulty)
+          AND (:type IS NULL OR q.typeKey = :type)
+        """,
+        countQuery = """
+        SELECT COUNT(q) FROM Question q
+        WHERE (:category IS NULL OR q.categoryKey = :category)
+          AND (:difficulty IS NULL OR q.difficultyKey = :difficulty)
+          AND (:type IS NULL OR q.typeKey = :type)
         """)
-    Page<Question> search(
+    Page<Long> searchIds(
             @Param("category") String category,
             @Param("difficulty") String difficulty,
             @Param("type") String type,
-            @Param("q") String q,
             Pageable pageable
     );
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package org.example.brainbuster.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+public interface QuestionRepositoryCustom {
+
+    /**
+     * Page of ids of the questions in which every one of {@code words} (lowercase) starts a word of the
+     * question text or of an answer. Words are recognized at the start of a field or after a space, so
+     * this is the catalog's text search minus words glued to punctuation, and without relevance.
+     * Category, difficulty and type filters must already be lowercased.
+     */
+    Page<Long> searchIdsByWords(String category, String difficulty, String type, List<String> words,
+                                Pageable pageable);
+
+    /**
+     * Keyset page of question ids ordered by {@code property} (then id ascending), starting
+     * strictly after ({@code afterKey}, {@code afterId}). Pass a null {@code afterId} for the first page.
+     * {@code words} filter as in {@link #searchIdsByWords}; pass an empty list for no text filter.
+     * Category, difficulty and type filters must already be lowercased.
+     */
+    List<Long> searchIdsAfter(String category, String difficulty, String type, List<String> words,
+                              String property, boolean descending,
+                              Object afterKey, Long afterId, int limit);
+}
@@ -0,0 +1,115 @@
+package org.example.brainbuster.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+
+public class QuestionRepositoryCustomImpl implements QuestionRepositoryCustom {
+
+    private static final Set<String> KEYSET_PROPERTIES =
+            Set.of("id", "type", "difficulty", "category", "question", "correctAnswer");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<Long> searchIdsByWords(String category, String difficulty, String type, List<String> words,
+                                       Pageable pageable) {
+        StringBuilder where = new StringBuilder(" WHERE 1 = 1");
+        Map<String, Object> params = new HashMap<>();
+        appendFilters(where, params, category, difficulty, type, words);
+
+        StringJoiner order = new StringJoiner(", ", " ORDER BY ", "");
+        for (Sort.Order o : pageable.getSort()) {
+            if (!KEYSET_PROPERTIES.contains(o.getProperty())) {
+                throw new IllegalArgumentException("Unsupported sort property: " + o.getProperty());
+            }
+            order.add("q." + o.getProperty() + (o.isDescending() ? " DESC" : " ASC"));
+        }
+
+        var query = entityManager.createQuery("SELECT q.id FROM Question q" + where
+                + (pageable.getSort().isSorted() ? order.toString() : ""), Long.class);
+        params.forEach(query::setParameter);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset()).setMaxResults(pageable.getPageSize());
+        }
+        List<Long> ids = query.getResultList();
+
+        var count = entityManager.createQuery("SELECT COUNT(q) FROM Question q" + where, Long.class);
+        params.forEach(count::setParameter);
+        return new PageImpl<>(ids, pageable, count.getSingleResult());
+    }
+
+    @Override
+    public List<Long> searchIdsAfter(String category, String difficulty, String type, List<String> words,
+                                     String property, boolean descending,
+                                     Object afterKey, Long afterId, int limit) {
+        if (!KEYSET_PROPERTIES.contains(property)) {
+            throw new IllegalArgumentException("Unsupported keyset property: " + property);
+        }
+
+        StringBuilder jpql = new StringBuilder("SELECT q.id FROM Question q WHERE 1 = 1");
+        Map<String, Object> params = new HashMap<>();
+        appendFilters(jpql, params, category, difficulty, type, words);
+
+        String cmp = descending ? "<" : ">";
+        if ("id".equals(property)) {
+            if (afterId != null) {
+                jpql.append(" AND q.id ").append(cmp).append(" :afterId");
+                params.put("afterId", afterId);
+            }
+            jpql.append(" ORDER BY q.id ").append(descending ? "DESC" : "ASC");
+        } else {
+            if (afterId != null) {
+                jpql.append(" AND (q.").append(property).append(' ').append(cmp).append(" :afterKey")
+                        .append(" OR (q.").append(property).append(" = :afterKey AND q.id > :afterId))");
+                params.put("afterKey", afterKey);
+                params.put("afterId", afterId);
+            }
+            jpql.append(" ORDER BY q.").append(property).append(descending ? " DESC" : " ASC").append(", q.id ASC");
+        }
+
+        var query = entityManager.createQuery(jpql.toString(), Long.class);
+        params.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+
+    private static void appendFilters(StringBuilder jpql, Map<String, Object> params,
+                                      String category, String difficulty, String type, List<String> words) {
+        if (category != null) {
+            jpql.append(" AND q.categoryKey = :category");
+            params.put("category", category);
+        }
+        if (difficulty != null) {
+            jpql.append(" AND q.difficultyKey = :difficulty");
+            params.put("difficulty", difficulty);
+        }
+        if (type != null) {
+            jpql.append(" AND q.typeKey = :type");
+            params.put("type", type);
+        }
+        // Words are letters and digits only, so they need no LIKE escaping.
+        for (int i = 0; i < words.size(); i++) {
+            String start = ":w" + i + "s", inner = ":w" + i + "i";
+            jpql.append(" AND (").append(startsWord("q.question", start, inner))
+                    .append(" OR ").append(startsWord("q.correctAnswer", start, inner))
+                    .append(" OR EXISTS (SELECT 1 FROM IncorrectAnswer ia WHERE ia.question = q AND ")
+                    .append(startsWord("ia.text", start, inner)).append("))");
+            params.put("w" + i + "s", words.get(i) + "%");
+            params.put("w" + i + "i", "% " + words.get(i) + "%");
+        }
+    }
+
+    private static String startsWord(String field, String start, String inner) {
+        return "(LOWER(" + field + ") LIKE " + start + " OR LOWER(" + field + ") LIKE " + inner + ")";
+    }
+}
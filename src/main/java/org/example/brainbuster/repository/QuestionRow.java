@@ -0,0 +1,13 @@
+package org.example.brainbuster.repository;
+
+/**
+ * Scalar columns of a question, without its incorrect answers.
+ */
+public record QuestionRow(
+        Long id,
+        String type,
+        String difficulty,
+        String category,
+        String question,
+        String correctAnswer
+) {}
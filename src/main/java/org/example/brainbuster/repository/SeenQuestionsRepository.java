@@ -0,0 +1,42 @@
+package org.example.brainbuster.repository;
+
+import org.example.brainbuster.model.SeenQuestions;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface SeenQuestionsRepository extends JpaRepository<SeenQuestions, String> {
+
+    /**
+     * Replaces the bitmap only if nobody has written it since {@code version} was read.
+     *
+     * @return 1 if written, 0 if the row changed in the meantime
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE SeenQuestions s
+        SET s.bitmap = :bitmap, s.updatedAt = :updatedAt, s.version = s.version + 1
+        WHERE s.username = :username AND s.version = :version
+        """)
+    int updateIfVersion(@Param("username") String username, @Param("version") long version,
+                        @Param("bitmap") byte[] bitmap, @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * @return 1 if inserted, 0 if the player already has a row
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        INSERT IGNORE INTO seen_questions (username, bitmap, updated_at, version)
+        VALUES (:username, :bitmap, :updatedAt, 0)
+        """, nativeQuery = true)
+    int insertIfAbsent(@Param("username") String username, @Param("bitmap") byte[] bitmap,
+                       @Param("updatedAt") LocalDateTime updatedAt);
+}
@@ -0,0 +1,56 @@
+package org.example.brainbuster.service;
+
+import java.util.Random;
+
+/**
+ * Vose's alias method: O(n) to build, O(1) per weighted draw (with replacement).
+ */
+final class AliasTable {
+
+    final long[] ids;
+    final double[] weights;
+    final double totalWeight;
+    final long builtAt;
+    private final double[] prob;
+    private final int[] alias;
+
+    AliasTable(long[] ids, double[] weights, long builtAt) {
+        int n = ids.length;
+        this.ids = ids;
+        this.weights = weights;
+        this.builtAt = builtAt;
+        this.prob = new double[n];
+        this.alias = new int[n];
+
+        double total = 0;
+        for (double w : weights) total += w;
+        this.totalWeight = total;
+
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int s = 0, l = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / total;
+            if (scaled[i] < 1) small[s++] = i;
+            else large[l++] = i;
+        }
+        while (s > 0 && l > 0) {
+            int less = small[--s];
+            int more = large[--l];
+            prob[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1;
+            if (scaled[more] < 1) small[s++] = more;
+            else large[l++] = more;
+        }
+        // Whatever is left is 1 up to rounding error.
+        while (l > 0) prob[large[--l]] = 1;
+        while (s > 0) prob[small[--s]] = 1;
+    }
+
+    long draw(Random rnd) {
+        int i = rnd.nextInt(ids.length);
+        return rnd.nextDouble() < prob[i] ? ids[i] : ids[alias[i]];
+    }
+}
@@ -0,0 +1,131 @@
+package org.example.brainbuster.service;
+
+import org.example.brainbuster.dto.question.QuestionReadDto;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary image of the question catalog on local disk.
+ * <p>
+ * Layout: magic, format version, the dictionary of category/difficulty/type values, then one record per
+ * question (id, three dictionary indexes, prompt, correct answer, incorrect answers), then a CRC32 of
+ * everything before it. Strings are length-prefixed UTF-8.
+ */
+public final class CatalogSnapshot {
+
+    private static final int MAGIC = 0x42425143; // "BBQC"
+    private static final int FORMAT = 1;
+
+    private CatalogSnapshot() {
+    }
+
+    /**
+     * Writes to a sibling temp file and moves it into place, so readers never see a partial snapshot.
+     */
+    public static void write(Path path, Collection<QuestionReadDto> questions) throws IOException {
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        for (QuestionReadDto q : questions) {
+            dictionary.putIfAbsent(q.category(), dictionary.size());
+            dictionary.putIfAbsent(q.difficulty(), dictionary.size());
+            dictionary.putIfAbsent(q.type(), dictionary.size());
+        }
+
+        Path dir = path.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, path.getFileName().toString(), ".tmp");
+        try {
+            CRC32 crc = new CRC32();
+            try (var out = new DataOutputStream(new BufferedOutputStream(
+                    new CheckedOutputStream(Files.newOutputStream(tmp), crc), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT);
+                out.writeInt(dictionary.size());
+                for (String value : dictionary.keySet()) writeString(out, value);
+                out.writeInt(questions.size());
+                for (QuestionReadDto q : questions) {
+                    out.writeLong(q.id());
+                    out.writeInt(dictionary.get(q.category()));
+                    out.writeInt(dictionary.get(q.difficulty()));
+                    out.writeInt(dictionary.get(q.type()));
+                    writeString(out, q.question());
+                    writeString(out, q.correctAnswer());
+                    out.writeInt(q.incorrectAnswers().size());
+                    for (String answer : q.incorrectAnswers()) writeString(out, answer);
+                }
+                out.flush();
+                out.writeLong(crc.getValue());
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Reads a snapshot through a memory mapping of the file. Dictionary values come back as shared instances.
+     *
+     * @throws IOException if the file is missing, truncated, corrupt or of another format
+     */
+    public static List<QuestionReadDto> read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 20 || size > Integer.MAX_VALUE) throw new IOException("Bad snapshot size: " + size);
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            CRC32 crc = new CRC32();
+            crc.update(buf.duplicate().limit((int) size - Long.BYTES));
+            if (crc.getValue() != buf.getLong((int) size - Long.BYTES)) throw new IOException("Snapshot checksum mismatch");
+            buf.limit((int) size - Long.BYTES);
+
+            if (buf.getInt() != MAGIC || buf.getInt() != FORMAT) throw new IOException("Not a catalog snapshot");
+            String[] dictionary = new String[count(buf)];
+            for (int i = 0; i < dictionary.length; i++) dictionary[i] = readString(buf);
+
+            int n = count(buf);
+            List<QuestionReadDto> out = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                long id = buf.getLong();
+                String category = dictionary[buf.getInt()];
+                String difficulty = dictionary[buf.getInt()];
+                String type = dictionary[buf.getInt()];
+                String question = readString(buf);
+                String correct = readString(buf);
+                String[] incorrect = new String[count(buf)];
+                for (int j = 0; j < incorrect.length; j++) incorrect[j] = readString(buf);
+                out.add(new QuestionReadDto(id, type, difficulty, category, question, correct, List.of(incorrect)));
+            }
+            return out;
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt catalog snapshot", e);
+        }
+    }
+
+    private static int count(ByteBuffer buf) throws IOException {
+        int n = buf.getInt();
+        if (n < 0 || n > buf.remaining()) throw new IOException("Corrupt catalog snapshot");
+        return n;
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    private static String readString(ByteBuffer buf) throws IOException {
+        byte[] b = new byte[count(buf)];
+        buf.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.brainbuster.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps sessions in this node's heap only; they are lost on restart.
+ */
+@Component
+@ConditionalOnProperty(prefix = "sp.sessions", name = "store", havingValue = "memory", matchIfMissing = true)
+public class InMemorySessionStore implements SessionStore {
+
+    private final Map<UUID, SpSession> sessions = new ConcurrentHashMap<>();
+    private final PlayerSessionIndex byPlayer = new PlayerSessionIndex();
+
+    @Override
+    public Optional<SpSession> find(UUID id) {
+        return Optional.ofNullable(sessions.get(id));
+    }
+
+    @Override
+    public List<SpSession> findByPlayer(String playerUsername) {
+        return byPlayer.ids(playerUsername).stream().map(sessions::get).filter(Objects::nonNull).toList();
+    }
+
+    @Override
+    public void put(SpSession session) {
+        sessions.put(session.id, session);
+        byPlayer.add(session);
+    }
+
+    @Override
+    public boolean remove(SpSession session) {
+        if (!sessions.remove(session.id, session)) return false;
+        byPlayer.remove(session);
+        return true;
+    }
+
+    @Override
+    public Collection<SpSession> local() {
+        return sessions.values();
+    }
+}
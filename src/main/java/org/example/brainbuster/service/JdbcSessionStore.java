@@ -0,0 +1,209 @@
+package org.example.brainbuster.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stores sessions in {@code sp_sessions} and keeps a hot copy of each one in use on this node, so any
+ * node can pick up a session and nothing is lost on restart.
+ * <p>
+ * The table is the authority: a session is inserted before its id is handed out, and every transition
+ * is a conditional update on the version the node last saw, so two nodes cannot both move a session
+ * on from the same state. Each lookup compares the hot copy's version against the stored one (a
+ * primary-key probe) and reloads it if another node has moved the session on. All of that is synchronous;
+ * only {@code last_access} of sessions that were read but not changed is written later, in batches, by
+ * {@link #writeLastAccess}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "sp.sessions", name = "store", havingValue = "jdbc")
+public class JdbcSessionStore implements SessionStore {
+
+    private static final int BATCH_SIZE = 500;
+
+    // A snapshot restored on startup may bring back sessions still in the table; only a newer copy
+    // overwrites a row, and version goes last as MySQL applies the assignments in order.
+    private static final String UPSERT = """
+            INSERT INTO sp_sessions (id, player_username, state, last_access, version, data)
+            VALUES (?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                state = IF(VALUES(version) > version, VALUES(state), state),
+                last_access = IF(VALUES(version) > version, VALUES(last_access), last_access),
+                data = IF(VALUES(version) > version, VALUES(data), data),
+                version = GREATEST(version, VALUES(version))
+            """;
+    private static final String UPDATE = """
+            UPDATE sp_sessions SET state = ?, last_access = ?, version = ?, data = ?
+            WHERE id = ? AND version = ?
+            """;
+    private static final String TOUCH = "UPDATE sp_sessions SET last_access = GREATEST(last_access, ?) WHERE id = ?";
+    private static final String DELETE = "DELETE FROM sp_sessions WHERE id = ?";
+    private static final String SELECT = "SELECT data FROM sp_sessions WHERE id = ?";
+    private static final String SELECT_VERSION = "SELECT version FROM sp_sessions WHERE id = ?";
+    private static final String SELECT_BY_PLAYER = "SELECT id FROM sp_sessions WHERE player_username = ?";
+    private static final String PURGE = """
+            DELETE FROM sp_sessions
+            WHERE last_access < ?
+               OR (state IN ('FINISHED', 'CANCELLED', 'ABORTED') AND last_access < ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<UUID, SpSession> hot = new ConcurrentHashMap<>();
+    private final PlayerSessionIndex byPlayer = new PlayerSessionIndex();
+    // Read since last_access was last written; the stored last_access is older than the hot copy's.
+    private final Set<UUID> touched = ConcurrentHashMap.newKeySet();
+
+    public JdbcSessionStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Optional<SpSession> find(UUID id) {
+        SpSession s = hot.get(id);
+        if (s == null) return load(id);
+
+        Long version = jdbcTemplate.query(SELECT_VERSION, rs -> rs.next() ? rs.getLong(1) : null, id.toString());
+        if (version == null) {
+            // Removed, or purged as idle, by another node.
+            drop(s);
+            return Optional.empty();
+        }
+        if (version > s.version()) {
+            drop(s);
+            return load(id);
+        }
+        touched.add(id);
+        return Optional.of(s);
+    }
+
+    private Optional<SpSession> load(UUID id) {
+        List<byte[]> rows = jdbcTemplate.query(SELECT, (rs, n) -> rs.getBytes(1), id.toString());
+        if (rows.isEmpty()) return Optional.empty();
+        SpSession loaded = SpSessionCodec.decode(rows.get(0));
+        SpSession s = hot.compute(id, (k, cur) -> cur == null || cur.version() < loaded.version() ? loaded : cur);
+        byPlayer.add(s);
+        return Optional.of(s);
+    }
+
+    /**
+     * Sessions held here plus those stored by other nodes (or before a restart).
+     */
+    @Override
+    public List<SpSession> findByPlayer(String playerUsername) {
+        Set<UUID> ids = new HashSet<>(byPlayer.ids(playerUsername));
+        jdbcTemplate.query(SELECT_BY_PLAYER, rs -> {
+            ids.add(UUID.fromString(rs.getString(1)));
+        }, playerUsername);
+        List<SpSession> sessions = new ArrayList<>(ids.size());
+        for (UUID id : ids) find(id).ifPresent(sessions::add);
+        return sessions;
+    }
+
+    @Override
+    public void put(SpSession session) {
+        SpSession.Progress p = session.progress();
+        jdbcTemplate.update(UPSERT, session.id.toString(), session.playerUsername, p.state().name(),
+                session.lastAccess, p.version(), SpSessionCodec.encode(session, p));
+        hot.put(session.id, session);
+        byPlayer.add(session);
+    }
+
+    /**
+     * Writes the new progress only if the row still holds {@code expected}; the local copy moves on
+     * after the row does. Transitions of one session on this node are serialized so they reach the
+     * table in order.
+     *
+     * @throws ResponseStatusException 409 if another node moved the session on first; the stale hot
+     *                                 copy is dropped, so the next request sees the stored one
+     */
+    @Override
+    public boolean transition(SpSession session, SpSession.Progress expected, SpSession.Progress next) {
+        synchronized (session) {
+            if (session.progress() != expected) return false;
+            int updated = jdbcTemplate.update(UPDATE, next.state().name(), session.lastAccess, next.version(),
+                    SpSessionCodec.encode(session, next), session.id.toString(), expected.version());
+            if (updated == 0) {
+                drop(session);
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Session was changed elsewhere; reload it");
+            }
+            return session.transition(expected, next);
+        }
+    }
+
+    @Override
+    public boolean remove(SpSession session) {
+        jdbcTemplate.update(DELETE, session.id.toString());
+        return drop(session);
+    }
+
+    /**
+     * Frees the hot copy only; the row stays for other nodes until {@link #purge} finds it idle by its
+     * own {@code last_access}.
+     */
+    @Override
+    public boolean evict(SpSession session) {
+        return drop(session);
+    }
+
+    private boolean drop(SpSession s) {
+        if (!hot.remove(s.id, s)) return false;
+        byPlayer.remove(s);
+        touched.remove(s.id);
+        return true;
+    }
+
+    @Override
+    public Collection<SpSession> local() {
+        return hot.values();
+    }
+
+    @Override
+    public void purge(long idleBefore, long finishedBefore) {
+        int purged = jdbcTemplate.update(PURGE, idleBefore, finishedBefore);
+        if (purged > 0) log.debug("Purged {} stored sessions", purged);
+    }
+
+    /**
+     * Writes {@code last_access} of sessions read since the last run, so a game that is being looked
+     * at but not played isn't purged as idle.
+     */
+    @Scheduled(fixedDelayString = "${sp.sessions.last-access-interval:PT0.2S}")
+    public void writeLastAccess() {
+        if (touched.isEmpty()) return;
+
+        List<UUID> drained = new ArrayList<>();
+        List<Object[]> touches = new ArrayList<>();
+        for (Iterator<UUID> it = touched.iterator(); it.hasNext(); ) {
+            UUID id = it.next();
+            it.remove();
+            SpSession s = hot.get(id);
+            if (s == null) continue;
+            drained.add(id);
+            touches.add(new Object[]{s.lastAccess, id.toString()});
+        }
+
+        try {
+            for (int from = 0; from < touches.size(); from += BATCH_SIZE) {
+                jdbcTemplate.batchUpdate(TOUCH, touches.subList(from, Math.min(from + BATCH_SIZE, touches.size())));
+            }
+        } catch (DataAccessException e) {
+            touched.addAll(drained);
+            log.warn("Could not write last access of {} sessions; retrying on the next run", drained.size(), e);
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        writeLastAccess();
+    }
+}
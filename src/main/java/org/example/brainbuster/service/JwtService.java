@@ -2,6 +2,7 @@ package org.example.brainbuster.service;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
@@ -11,8 +12,13 @@ import org.example.brainbuster.model.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import javax.crypto.Mac;
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
 import java.util.Date;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -20,10 +26,29 @@ public class JwtService {
     private final JwtProperties jwtProperties;
     private static final String ROLE_PREFIX = "ROLE_";
     private static final String ACCESS_PREFIX = "access";
+    private static final String SP_SESSION_TYPE = "sp";
+
+    private volatile SecretKey signingKey;
+
+    // Mac isn't thread-safe; one per thread skips the provider lookup and key setup on every call.
+    private final ThreadLocal<Mac> hmacs = ThreadLocal.withInitial(() -> {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(getSigningKey());
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    });
 
     private SecretKey getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(jwtProperties.getSecret());
-        return Keys.hmacShaKeyFor(keyBytes);
+        SecretKey key = signingKey;
+        if (key == null) {
+            byte[] keyBytes = Decoders.BASE64.decode(jwtProperties.getSecret());
+            key = Keys.hmacShaKeyFor(keyBytes);
+            signingKey = key;
+        }
+        return key;
     }
 
     public String generateToken(User user) {
@@ -50,6 +75,39 @@ public class JwtService {
                 .compact();
     }
 
+    /**
+     * Signs the state of a stateless single-player game. Its type keeps it from passing as an access token.
+     */
+    public String generateSpSessionToken(String username, String sessionId, Map<String, Object> state, Duration ttl) {
+        return Jwts.builder()
+                .setSubject(username)
+                .setId(sessionId)
+                .addClaims(state)
+                .claim("type", SP_SESSION_TYPE)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + ttl.toMillis()))
+                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    /**
+     * @throws io.jsonwebtoken.JwtException if the token is not a valid, unexpired single-player session token
+     */
+    public Claims extractSpSessionClaims(String token) {
+        Claims c = extractAllClaims(token);
+        if (!SP_SESSION_TYPE.equals(c.get("type", String.class))) {
+            throw new MalformedJwtException("Not a single-player session token");
+        }
+        return c;
+    }
+
+    /**
+     * HMAC-SHA256 of {@code data} under the signing key, for values the client must not be able to derive.
+     */
+    public byte[] hmac(String data) {
+        return hmacs.get().doFinal(data.getBytes(StandardCharsets.UTF_8));
+    }
+
     public String extractUsername(String token) {
         return extractAllClaims(token).getSubject();
     }
@@ -0,0 +1,38 @@
+package org.example.brainbuster.service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Session ids by player, kept by a {@link SessionStore} next to its primary map. Updates for one
+ * player are atomic, so an emptied entry is never dropped while another session is being added.
+ * Lookups resolve ids through the primary map, which is the source of truth.
+ */
+final class PlayerSessionIndex {
+
+    private final Map<String, Set<UUID>> byPlayer = new ConcurrentHashMap<>();
+
+    void add(SpSession s) {
+        if (s.playerUsername == null) return;
+        byPlayer.compute(s.playerUsername, (player, ids) -> {
+            if (ids == null) ids = ConcurrentHashMap.newKeySet();
+            ids.add(s.id);
+            return ids;
+        });
+    }
+
+    void remove(SpSession s) {
+        if (s.playerUsername == null) return;
+        byPlayer.computeIfPresent(s.playerUsername, (player, ids) -> {
+            ids.remove(s.id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    Set<UUID> ids(String playerUsername) {
+        Set<UUID> ids = byPlayer.get(playerUsername);
+        return ids == null ? Set.of() : Set.copyOf(ids);
+    }
+}
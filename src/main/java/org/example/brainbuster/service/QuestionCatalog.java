@@ -0,0 +1,493 @@
+package org.example.brainbuster.service;
+
+import org.example.brainbuster.dto.question.QuestionFacet;
+import org.example.brainbuster.dto.question.QuestionReadDto;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.function.LongPredicate;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Resident copy of the question bank, bucketed by (category, difficulty, type) so that
+ * decks can be drawn without touching the database. Kept in sync by {@link QuestionService}.
+ * <p>
+ * Category, difficulty and type values are dictionary-encoded: buckets are keyed by small
+ * integer codes of the lowercased value, and the strings held by the cached questions are
+ * interned so that each distinct value is stored once.
+ */
+@Component
+public class QuestionCatalog {
+
+    private static final long[] NO_IDS = new long[0];
+    private static final int ANY = -1;
+    private static final int UNKNOWN = -2;
+    private static final double EXPOSURE_HALF_LIFE_MS = 24 * 60 * 60 * 1000.0;
+    private static final long ALIAS_REBUILD_INTERVAL_MS = 1_000;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, QuestionReadDto> questions = new HashMap<>();
+    private final Map<BucketKey, long[]> buckets = new HashMap<>();
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> labels = new ArrayList<>();
+    private final Map<String, String> interned = new HashMap<>();
+    private final QuestionTextIndex textIndex = new QuestionTextIndex();
+    private volatile boolean loaded = false;
+    // Bumped on every change; together with the epoch it versions any result read from the catalog.
+    private final String epoch = UUID.randomUUID().toString();
+    private volatile long revision = 0;
+
+    // Weighted sampling state. Mutated under the read lock too, hence the concurrent collections.
+    private final Map<Long, Exposure> exposures = new ConcurrentHashMap<>();
+    private final Map<BucketKey, AliasTable> aliasTables = new ConcurrentHashMap<>();
+    private final Set<BucketKey> exposureChanged = ConcurrentHashMap.newKeySet();
+
+    /**
+     * How often a question has been dealt, decayed with a one-day half-life.
+     */
+    private record Exposure(double value, long at) {
+        double valueAt(long now) {
+            return value * Math.pow(0.5, (now - at) / EXPOSURE_HALF_LIFE_MS);
+        }
+    }
+
+    record BucketKey(int category, int difficulty, int type) {
+        boolean matches(int category, int difficulty, int type) {
+            return (category == ANY || category == this.category)
+                    && (difficulty == ANY || difficulty == this.difficulty)
+                    && (type == ANY || type == this.type);
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public String epoch() {
+        return epoch;
+    }
+
+    public long revision() {
+        return revision;
+    }
+
+    public void load(Collection<QuestionReadDto> all) {
+        lock.writeLock().lock();
+        try {
+            replace(all);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Like {@link #load}, but only if nothing changed since {@code expectedRevision} was read, so that a
+     * slow background reload cannot overwrite newer writes with what it read before them.
+     */
+    public boolean loadIfUnchanged(Collection<QuestionReadDto> all, long expectedRevision) {
+        lock.writeLock().lock();
+        try {
+            if (revision != expectedRevision) return false;
+            replace(all);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Puts {@code changed} and removes {@code removed}, but only if nothing changed since
+     * {@code expectedRevision} was read; see {@link #loadIfUnchanged}.
+     */
+    public boolean applyIfUnchanged(Collection<QuestionReadDto> changed, Collection<Long> removed,
+                                    long expectedRevision) {
+        lock.writeLock().lock();
+        try {
+            if (revision != expectedRevision) return false;
+            if (!changed.isEmpty()) putAll(changed);
+            removed.forEach(this::remove);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void replace(Collection<QuestionReadDto> all) {
+        questions.clear();
+        buckets.clear();
+        codes.clear();
+        labels.clear();
+        interned.clear();
+        textIndex.clear();
+        Map<BucketKey, List<Long>> grouped = new HashMap<>();
+        for (QuestionReadDto dto : all) {
+            QuestionReadDto stored = intern(dto);
+            questions.put(stored.id(), stored);
+            textIndex.add(stored);
+            grouped.computeIfAbsent(encode(stored), k -> new ArrayList<>()).add(stored.id());
+        }
+        grouped.forEach((k, ids) -> buckets.put(k, ids.stream().mapToLong(Long::longValue).toArray()));
+        aliasTables.clear();
+        exposureChanged.clear();
+        exposures.keySet().retainAll(questions.keySet());
+        loaded = true;
+        revision++;
+    }
+
+    public void put(QuestionReadDto dto) {
+        lock.writeLock().lock();
+        try {
+            revision++;
+            QuestionReadDto stored = intern(dto);
+            QuestionReadDto previous = questions.put(stored.id(), stored);
+            if (previous != null) textIndex.remove(previous);
+            textIndex.add(stored);
+            BucketKey target = encode(stored);
+            if (previous != null) {
+                BucketKey source = encode(previous);
+                if (source.equals(target)) return;
+                removeFromBucket(source, previous.id());
+            }
+            long[] ids = buckets.getOrDefault(target, NO_IDS);
+            long[] grown = Arrays.copyOf(ids, ids.length + 1);
+            grown[ids.length] = stored.id();
+            buckets.put(target, grown);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Same as calling {@link #put} for each question, but appends to each bucket only once.
+     */
+    public void putAll(Collection<QuestionReadDto> dtos) {
+        lock.writeLock().lock();
+        try {
+            revision++;
+            Map<BucketKey, List<Long>> appended = new HashMap<>();
+            for (QuestionReadDto dto : dtos) {
+                if (questions.containsKey(dto.id())) {
+                    put(dto);
+                    continue;
+                }
+                QuestionReadDto stored = intern(dto);
+                questions.put(stored.id(), stored);
+                textIndex.add(stored);
+                appended.computeIfAbsent(encode(stored), k -> new ArrayList<>()).add(stored.id());
+            }
+            appended.forEach((key, ids) -> {
+                long[] current = buckets.getOrDefault(key, NO_IDS);
+                long[] grown = Arrays.copyOf(current, current.length + ids.size());
+                for (int i = 0; i < ids.size(); i++) grown[current.length + i] = ids.get(i);
+                buckets.put(key, grown);
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            QuestionReadDto previous = questions.remove(id);
+            exposures.remove(id);
+            if (previous != null) {
+                revision++;
+                textIndex.remove(previous);
+                removeFromBucket(encode(previous), id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Optional<QuestionReadDto> get(long id) {
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(questions.get(id));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<QuestionReadDto> values() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(questions.values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return questions.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int count(String category, String difficulty, String type) {
+        lock.readLock().lock();
+        try {
+            int total = 0;
+            for (long[] ids : matching(category, difficulty, type)) total += ids.length;
+            return total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Question counts per (category, difficulty, type), read straight from the bucket sizes.
+     */
+    public List<QuestionFacet> facets() {
+        lock.readLock().lock();
+        try {
+            List<QuestionFacet> out = new ArrayList<>(buckets.size());
+            buckets.forEach((k, ids) -> out.add(new QuestionFacet(
+                    labels.get(k.category()), labels.get(k.difficulty()), labels.get(k.type()), ids.length)));
+            out.sort(Comparator.comparing(QuestionFacet::category, String.CASE_INSENSITIVE_ORDER)
+                    .thenComparing(QuestionFacet::difficulty, String.CASE_INSENSITIVE_ORDER)
+                    .thenComparing(QuestionFacet::type, String.CASE_INSENSITIVE_ORDER));
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Draws {@code count} distinct questions from the matching buckets, favouring those dealt least
+     * (recently): each question is weighted {@code 1 / (1 + decayed exposure)}, see {@link #recordExposure}.
+     * Returns fewer if not enough questions match.
+     * <p>
+     * Draws use a per-bucket alias table, so a deck costs O(count) rather than a pass over the pool.
+     * Tables are rebuilt when a bucket's membership changes, and at most once a second when only
+     * exposures changed.
+     */
+    public List<QuestionReadDto> sampleWeighted(String category, String difficulty, String type, int count) {
+        return sampleWeighted(category, difficulty, type, count, id -> false);
+    }
+
+    /**
+     * Same as {@link #sampleWeighted(String, String, String, int)}, never returning a question for which
+     * {@code excluded} holds.
+     */
+    public List<QuestionReadDto> sampleWeighted(String category, String difficulty, String type, int count,
+                                                LongPredicate excluded) {
+        lock.readLock().lock();
+        try {
+            long now = System.currentTimeMillis();
+            List<AliasTable> tables = new ArrayList<>();
+            int total = 0;
+            for (BucketKey key : matchingKeys(category, difficulty, type)) {
+                AliasTable table = aliasTable(key, now);
+                tables.add(table);
+                total += table.ids.length;
+            }
+            int n = Math.min(count, total);
+            var rnd = ThreadLocalRandom.current();
+
+            Set<Long> picked = new LinkedHashSet<>();
+            if (n * 2 <= total) {
+                double[] cumulative = new double[tables.size()];
+                double sum = 0;
+                for (int i = 0; i < tables.size(); i++) cumulative[i] = sum += tables.get(i).totalWeight;
+                // Rejection of repeats stays cheap while at most half the pool is taken.
+                for (int attempts = 0; picked.size() < n && attempts < 32 * n; attempts++) {
+                    int b = Arrays.binarySearch(cumulative, rnd.nextDouble() * sum);
+                    AliasTable table = tables.get(Math.min(b < 0 ? -b - 1 : b, tables.size() - 1));
+                    long id = table.draw(rnd);
+                    if (!excluded.test(id)) picked.add(id);
+                }
+            }
+            if (picked.size() < n) {
+                picked.addAll(weightedTopK(tables, n - picked.size(), id -> picked.contains(id) || excluded.test(id), rnd));
+            }
+
+            List<QuestionReadDto> out = new ArrayList<>(n);
+            for (long id : picked) out.add(questions.get(id));
+            Collections.shuffle(out, rnd);
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of all questions matching the filter.
+     */
+    public long[] ids(String category, String difficulty, String type) {
+        lock.readLock().lock();
+        try {
+            return matching(category, difficulty, type).stream().flatMapToLong(Arrays::stream).toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts one more exposure for each question, lowering its weight in {@link #sampleWeighted}.
+     */
+    public void recordExposure(Collection<Long> ids) {
+        lock.readLock().lock();
+        try {
+            long now = System.currentTimeMillis();
+            for (Long id : ids) {
+                QuestionReadDto dto = questions.get(id);
+                if (dto == null) continue;
+                exposures.compute(id, (k, e) -> new Exposure(e == null ? 1 : e.valueAt(now) + 1, now));
+                exposureChanged.add(encode(dto));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private AliasTable aliasTable(BucketKey key, long now) {
+        long[] ids = buckets.get(key);
+        AliasTable table = aliasTables.get(key);
+        if (table != null && table.ids == ids
+                && (now - table.builtAt < ALIAS_REBUILD_INTERVAL_MS || !exposureChanged.contains(key))) {
+            return table;
+        }
+        exposureChanged.remove(key);
+        double[] weights = new double[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            Exposure e = exposures.get(ids[i]);
+            weights[i] = 1 / (1 + (e == null ? 0 : e.valueAt(now)));
+        }
+        AliasTable built = new AliasTable(ids, weights, now);
+        aliasTables.put(key, built);
+        return built;
+    }
+
+    /**
+     * Weighted sampling without replacement in one pass (Efraimidis-Spirakis): keeps the k largest
+     * {@code u^(1/w)}, compared as {@code log(u) / w}.
+     */
+    private static List<Long> weightedTopK(List<AliasTable> tables, int k, LongPredicate exclude, Random rnd) {
+        record Keyed(double key, long id) {}
+        PriorityQueue<Keyed> top = new PriorityQueue<>(k + 1, Comparator.comparingDouble(Keyed::key));
+        for (AliasTable table : tables) {
+            for (int i = 0; i < table.ids.length; i++) {
+                if (exclude.test(table.ids[i])) continue;
+                double key = Math.log(1 - rnd.nextDouble()) / table.weights[i];
+                if (top.size() < k) {
+                    top.add(new Keyed(key, table.ids[i]));
+                } else if (key > top.peek().key()) {
+                    top.poll();
+                    top.add(new Keyed(key, table.ids[i]));
+                }
+            }
+        }
+        List<Long> out = new ArrayList<>(top.size());
+        for (Keyed e : top) out.add(e.id());
+        return out;
+    }
+
+    /**
+     * Questions whose text or answers contain every word of {@code query} (as a word prefix),
+     * best match first.
+     */
+    public List<QuestionReadDto> textSearch(String query, String category, String difficulty, String type) {
+        lock.readLock().lock();
+        try {
+            int c = filterCode(category), d = filterCode(difficulty), t = filterCode(type);
+            Map<Long, Float> scores = textIndex.search(query);
+            List<QuestionReadDto> out = new ArrayList<>();
+            for (Long id : scores.keySet()) {
+                QuestionReadDto dto = questions.get(id);
+                if (dto != null && encode(dto).matches(c, d, t)) out.add(dto);
+            }
+            out.sort(Comparator.comparing((QuestionReadDto dto) -> scores.get(dto.id())).reversed()
+                    .thenComparing(QuestionReadDto::id));
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<long[]> matching(String category, String difficulty, String type) {
+        int c = filterCode(category), d = filterCode(difficulty), t = filterCode(type);
+        if (c == UNKNOWN || d == UNKNOWN || t == UNKNOWN) return List.of();
+        if (c != ANY && d != ANY && t != ANY) {
+            long[] ids = buckets.get(new BucketKey(c, d, t));
+            return ids == null ? List.of() : List.of(ids);
+        }
+        List<long[]> out = new ArrayList<>();
+        buckets.forEach((k, ids) -> {
+            if (k.matches(c, d, t)) out.add(ids);
+        });
+        return out;
+    }
+
+    private List<BucketKey> matchingKeys(String category, String difficulty, String type) {
+        int c = filterCode(category), d = filterCode(difficulty), t = filterCode(type);
+        if (c == UNKNOWN || d == UNKNOWN || t == UNKNOWN) return List.of();
+        List<BucketKey> out = new ArrayList<>();
+        for (BucketKey k : buckets.keySet()) {
+            if (k.matches(c, d, t)) out.add(k);
+        }
+        return out;
+    }
+
+    private void removeFromBucket(BucketKey key, long id) {
+        long[] ids = buckets.get(key);
+        if (ids == null) return;
+        int at = -1;
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) { at = i; break; }
+        }
+        if (at < 0) return;
+        if (ids.length == 1) {
+            buckets.remove(key);
+            return;
+        }
+        long[] shrunk = new long[ids.length - 1];
+        System.arraycopy(ids, 0, shrunk, 0, at);
+        System.arraycopy(ids, at + 1, shrunk, at, ids.length - at - 1);
+        buckets.put(key, shrunk);
+    }
+
+    /**
+     * Only call with the write lock held, or for questions already in the catalog
+     * (whose values are known to have codes).
+     */
+    private BucketKey encode(QuestionReadDto dto) {
+        return new BucketKey(code(dto.category()), code(dto.difficulty()), code(dto.type()));
+    }
+
+    private int code(String value) {
+        String k = key(value);
+        Integer c = codes.get(k);
+        if (c != null) return c;
+        labels.add(value.trim());
+        codes.put(k, labels.size() - 1);
+        return labels.size() - 1;
+    }
+
+    private int filterCode(String value) {
+        String k = key(value);
+        if (k == null) return ANY;
+        Integer c = codes.get(k);
+        return c == null ? UNKNOWN : c;
+    }
+
+    private QuestionReadDto intern(QuestionReadDto dto) {
+        return new QuestionReadDto(dto.id(), intern(dto.type()), intern(dto.difficulty()), intern(dto.category()),
+                dto.question(), dto.correctAnswer(), List.copyOf(dto.incorrectAnswers()));
+    }
+
+    private String intern(String value) {
+        return value == null ? null : interned.computeIfAbsent(value, v -> v);
+    }
+
+    static String key(String s) {
+        return (s == null || s.isBlank()) ? null : s.trim().toLowerCase(Locale.ROOT);
+    }
+}
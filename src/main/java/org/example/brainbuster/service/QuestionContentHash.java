@@ -0,0 +1,74 @@
+package org.example.brainbuster.service;
+
+import org.example.brainbuster.model.IncorrectAnswer;
+import org.example.brainbuster.model.Question;
+import org.springframework.web.util.HtmlUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Identity of a question's content, used to recognise duplicates across imports: SHA-256 over the type,
+ * prompt, correct answer and the set of incorrect answers, after {@link #normalize normalizing} them and
+ * folding case. Category and difficulty are left out so a re-labelled copy still counts as a duplicate.
+ */
+public final class QuestionContentHash {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private QuestionContentHash() {
+    }
+
+    public static String of(Question q) {
+        return of(q.getType(), q.getQuestion(), q.getCorrectAnswer(),
+                q.getIncorrectAnswers().stream().map(IncorrectAnswer::getText).toList());
+    }
+
+    public static String of(String type, String question, String correctAnswer, List<String> incorrectAnswers) {
+        MessageDigest digest = sha256();
+        update(digest, type);
+        update(digest, question);
+        update(digest, correctAnswer);
+        incorrectAnswers.stream().map(QuestionContentHash::fold).sorted().distinct()
+                .forEach(a -> updateFolded(digest, a));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Decodes HTML entities (OpenTDB packs are HTML-escaped), applies NFC and trims and collapses whitespace.
+     */
+    public static String normalize(String s) {
+        if (s == null) return null;
+        String unescaped = HtmlUtils.htmlUnescape(s);
+        return WHITESPACE.matcher(Normalizer.normalize(unescaped, Normalizer.Form.NFC)).replaceAll(" ").trim();
+    }
+
+    private static String fold(String s) {
+        return normalize(s).toLowerCase(Locale.ROOT);
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        updateFolded(digest, fold(value));
+    }
+
+    private static void updateFolded(MessageDigest digest, String folded) {
+        byte[] bytes = folded.getBytes(StandardCharsets.UTF_8);
+        digest.update(new byte[]{(byte) (bytes.length >>> 24), (byte) (bytes.length >>> 16),
+                (byte) (bytes.length >>> 8), (byte) bytes.length});
+        digest.update(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.example.brainbuster.service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset position: the sort it was issued for, the last row's sort key and its id.
+ */
+record QuestionCursor(String sort, String key, long id) {
+
+    String encode() {
+        try {
+            var bytes = new ByteArrayOutputStream();
+            var out = new DataOutputStream(bytes);
+            writeString(out, sort);
+            out.writeBoolean(key != null);
+            if (key != null) writeString(out, key);
+            out.writeLong(id);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static QuestionCursor decode(String token) {
+        try {
+            var in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)));
+            String sort = readString(in);
+            String key = in.readBoolean() ? readString(in) : null;
+            long id = in.readLong();
+            if (in.available() > 0) throw new IOException("Trailing bytes in cursor");
+            return new QuestionCursor(sort, key, id);
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int len = in.readInt();
+        if (len < 0 || len > in.available()) throw new IOException("Corrupt cursor");
+        return new String(in.readNBytes(len), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.brainbuster.service;
+
+import org.example.brainbuster.dto.question.QuestionReadDto;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * Strong entity tags for question reads. A single question's tag is a hash of its content, so it is
+ * stable across restarts; search tags are derived from the catalog revision and the request parameters.
+ */
+public final class QuestionETags {
+
+    private QuestionETags() {
+    }
+
+    public static String of(QuestionReadDto dto) {
+        MessageDigest digest = sha256();
+        update(digest, String.valueOf(dto.id()));
+        update(digest, dto.type());
+        update(digest, dto.difficulty());
+        update(digest, dto.category());
+        update(digest, dto.question());
+        update(digest, dto.correctAnswer());
+        for (String answer : dto.incorrectAnswers()) update(digest, answer);
+        return quoted(digest);
+    }
+
+    static String of(String epoch, long revision, Object... params) {
+        MessageDigest digest = sha256();
+        update(digest, epoch);
+        update(digest, Long.toString(revision));
+        for (Object param : params) update(digest, param == null ? null : param.toString());
+        return quoted(digest);
+    }
+
+    /**
+     * Weak comparison, as RFC 9110 prescribes for {@code If-None-Match}.
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String c = candidate.trim();
+            if (c.equals("*")) return true;
+            if (c.startsWith("W/")) c = c.substring(2);
+            if (c.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        if (value == null) {
+            digest.update((byte) 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) 1);
+        digest.update(new byte[]{(byte) (bytes.length >>> 24), (byte) (bytes.length >>> 16),
+                (byte) (bytes.length >>> 8), (byte) bytes.length});
+        digest.update(bytes);
+    }
+
+    private static String quoted(MessageDigest digest) {
+        return '"' + HexFormat.of().formatHex(Arrays.copyOf(digest.digest(), 16)) + '"';
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package org.example.brainbuster.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.brainbuster.dto.question.BulkResult;
+import org.example.brainbuster.dto.question.IngestResult;
+import org.example.brainbuster.dto.question.OpenTdbQuestion;
+import org.example.brainbuster.dto.question.QuestionCreateDto;
+import org.example.brainbuster.model.Question;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Streams OpenTDB-style question packs into the bank: either {@code {"results": [...]}} or a bare array
+ * of questions. The pack is parsed one entry at a time and handled in batches, so memory use does not
+ * depend on its size. Each batch is validated in parallel, deduplicated by content hash against itself
+ * and the bank, and inserted in its own transaction; an aborted ingest keeps the batches written so far.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class QuestionIngestService {
+
+    private static final int BATCH_SIZE = 1_000;
+    private static final int BACKFILL_BATCH_SIZE = 500;
+    private static final int PROGRESS_EVERY = 10_000;
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final int MAX_INSERT_ATTEMPTS = 3;
+
+    private final QuestionService questionService;
+    private final ObjectMapper objectMapper;
+
+    private record Prepared(Question question, String error) {}
+
+    private static final class Progress {
+        int read, inserted, duplicates, rejected;
+        final List<BulkResult.RowError> errors = new ArrayList<>();
+
+        IngestResult result() {
+            return new IngestResult(read, inserted, duplicates, rejected, errors);
+        }
+    }
+
+    /**
+     * Hashes the questions written before the content_hash column existed, which ingests would otherwise
+     * never match as duplicates. Runs once at startup rather than with every ingest.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillContentHashes() {
+        int backfilled = 0;
+        long after = Long.MIN_VALUE;
+        for (List<Long> ids; !(ids = questionService.backfillContentHashes(after, BACKFILL_BATCH_SIZE)).isEmpty(); ) {
+            backfilled += ids.size();
+            after = ids.get(ids.size() - 1);
+        }
+        if (backfilled > 0) log.info("Checked content hashes of {} existing questions", backfilled);
+    }
+
+    public IngestResult ingest(InputStream in) throws IOException {
+        Progress progress = new Progress();
+        try (JsonParser parser = objectMapper.createParser(in)) {
+            moveToQuestions(parser);
+            List<JsonNode> batch = new ArrayList<>(BATCH_SIZE);
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unexpected end of pack");
+                batch.add(objectMapper.readTree(parser));
+                if (batch.size() == BATCH_SIZE) {
+                    writeBatch(batch, progress);
+                    batch.clear();
+                }
+            }
+            writeBatch(batch, progress);
+        } catch (JsonProcessingException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed pack after " + progress.read
+                    + " questions (" + progress.inserted + " inserted): " + e.getOriginalMessage(), e);
+        }
+        log.info("Ingest finished: {} read, {} inserted, {} duplicates, {} rejected",
+                progress.read, progress.inserted, progress.duplicates, progress.rejected);
+        return progress.result();
+    }
+
+    private void moveToQuestions(JsonParser parser) throws IOException {
+        JsonToken first = parser.nextToken();
+        if (first == JsonToken.START_ARRAY) return;
+        if (first == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                if (parser.nextToken() == JsonToken.START_ARRAY && "results".equals(field)) return;
+                parser.skipChildren();
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "Expected an array of questions or an object with a \"results\" array");
+    }
+
+    private void writeBatch(List<JsonNode> batch, Progress progress) {
+        if (batch.isEmpty()) return;
+        int offset = progress.read;
+        List<Prepared> prepared = IntStream.range(0, batch.size()).parallel()
+                .mapToObj(i -> prepare(batch.get(i)))
+                .toList();
+
+        Map<String, Question> unique = new LinkedHashMap<>();
+        for (int i = 0; i < prepared.size(); i++) {
+            Prepared p = prepared.get(i);
+            if (p.error() != null) {
+                progress.rejected++;
+                if (progress.errors.size() < MAX_REPORTED_ERRORS) {
+                    progress.errors.add(new BulkResult.RowError(offset + i, p.error()));
+                }
+            } else if (unique.putIfAbsent(p.question().getContentHash(), p.question()) != null) {
+                progress.duplicates++;
+            }
+        }
+
+        int inserted = importNew(new ArrayList<>(unique.values()));
+        progress.inserted += inserted;
+        progress.duplicates += unique.size() - inserted;
+        progress.read += batch.size();
+        if (progress.read / PROGRESS_EVERY != offset / PROGRESS_EVERY) {
+            log.info("Ingest progress: {} read, {} inserted, {} duplicates, {} rejected",
+                    progress.read, progress.inserted, progress.duplicates, progress.rejected);
+        }
+    }
+
+    private int importNew(List<Question> questions) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return questionService.importNew(questions).size();
+            } catch (DuplicateKeyException e) {
+                // A concurrent ingest committed some of these after our check; the retry sees and skips them.
+                if (attempt == MAX_INSERT_ATTEMPTS) throw e;
+                log.debug("Batch collided with a concurrent ingest, retrying", e);
+            }
+        }
+    }
+
+    private Prepared prepare(JsonNode node) {
+        try {
+            OpenTdbQuestion row = objectMapper.treeToValue(node, OpenTdbQuestion.class);
+            List<String> incorrect = row.incorrectAnswers() == null ? null
+                    : row.incorrectAnswers().stream().map(QuestionContentHash::normalize).toList();
+            QuestionCreateDto dto = new QuestionCreateDto(
+                    QuestionContentHash.normalize(row.type()),
+                    QuestionContentHash.normalize(row.difficulty()),
+                    QuestionContentHash.normalize(row.category()),
+                    QuestionContentHash.normalize(row.question()),
+                    QuestionContentHash.normalize(row.correctAnswer()),
+                    incorrect);
+            QuestionService.checkImportRow(dto);
+            return new Prepared(QuestionService.toNewQuestion(dto), null);
+        } catch (JsonProcessingException e) {
+            return new Prepared(null, "Not a question: " + e.getOriginalMessage());
+        } catch (IllegalArgumentException e) {
+            return new Prepared(null, e.getMessage());
+        }
+    }
+}
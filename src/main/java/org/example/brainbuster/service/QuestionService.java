@@ -1,40 +1,393 @@
 package org.example.brainbuster.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.brainbuster.config.CatalogProperties;
+import org.example.brainbuster.dto.question.BulkResult;
 import org.example.brainbuster.dto.question.QuestionCreateDto;
+import org.example.brainbuster.dto.question.QuestionCursorPage;
+import org.example.brainbuster.dto.question.QuestionFacet;
+import org.example.brainbuster.dto.question.QuestionPatchDto;
 import org.example.brainbuster.dto.question.QuestionReadDto;
 import org.example.brainbuster.dto.question.QuestionUpdateDto;
 import org.example.brainbuster.exception.QuestionNotFoundException;
 import org.example.brainbuster.model.IncorrectAnswer;
 import org.example.brainbuster.model.Question;
+import org.example.brainbuster.repository.AnswerRow;
+import org.example.brainbuster.repository.ContentHashRow;
+import org.example.brainbuster.repository.QuestionBatchWriter;
+import org.example.brainbuster.repository.QuestionChangeLog;
 import org.example.brainbuster.repository.QuestionRepository;
+import org.example.brainbuster.repository.QuestionRow;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class QuestionService {
+    private static final String RELEVANCE = "relevance";
+    private static final Set<String> KEYSET_PROPERTIES =
+            Set.of("id", "type", "difficulty", "category", "question", "correctAnswer");
+
+    private static final int EXPORT_BATCH_SIZE = 500;
+    private static final int MAX_IMPORT_ROWS = 50_000;
+    private static final int MAX_PATCH_ROWS = 10_000;
+    private static final int PATCH_FETCH_SIZE = 1_000;
+    private static final int MAX_UNPAGED_QUESTIONS = 1_000;
+
     private final QuestionRepository questionRepository;
+    private final QuestionBatchWriter batchWriter;
+    private final QuestionCatalog catalog;
+    private final ObjectMapper objectMapper;
+    private final EntityManagerFactory entityManagerFactory;
+    private final SearchCoalescer searchCoalescer;
+    private final CatalogProperties catalogProperties;
+    private final QuestionChangeLog changeLog;
+
+    // Change log time up to which other nodes' writes are in the catalog; -1 before the first read.
+    private volatile long changesSince = -1;
+    // Change log rows already applied that the overlap of the next refresh reads again, by changed_at.
+    private final Map<Long, Long> appliedChanges = new ConcurrentHashMap<>();
+    private volatile boolean reconcilePending;
 
-    public List<Question> getAllQuestions() {
-        return questionRepository.findAll();
+    /**
+     * Fills the catalog from the local snapshot when there is a fresh one, and reconciles it with the
+     * database in the background after a random delay; otherwise reads the database right away.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadCatalog() {
+        Path snapshot = snapshotPath();
+        if (snapshot != null) {
+            try {
+                Instant written = Files.getLastModifiedTime(snapshot).toInstant();
+                if (written.plus(catalogProperties.getSnapshotMaxAge()).isAfter(Instant.now())) {
+                    catalog.load(CatalogSnapshot.read(snapshot));
+                    long jitter = ThreadLocalRandom.current().nextLong(catalogProperties.getReconcileJitter().toMillis() + 1);
+                    reconcilePending = true;
+                    CompletableFuture.runAsync(this::reconcileCatalog,
+                            CompletableFuture.delayedExecutor(jitter, TimeUnit.MILLISECONDS))
+                            .whenComplete((ignored, e) -> {
+                                if (e != null) log.error("Could not reconcile the question catalog with the database", e);
+                                reconcilePending = false;
+                            });
+                    return;
+                }
+            } catch (NoSuchFileException e) {
+                // first start on this node
+            } catch (IOException e) {
+                log.warn("Ignoring unreadable catalog snapshot {}", snapshot, e);
+            }
+        }
+        reconcileCatalog();
+    }
+
+    /**
+     * Applies the questions other nodes changed since the last refresh, read from the change log, so the
+     * catalog, and the search ETags derived from its revision, never lag behind their writes for long.
+     * This node's own writes are applied when they commit.
+     */
+    @Scheduled(fixedDelayString = "${catalog.refresh-interval:PT10S}")
+    public void refreshCatalog() {
+        if (!catalog.isLoaded() || reconcilePending) return;
+        // Read before the log, so a change logged in between is read by the next refresh.
+        long now = changeLog.now();
+        if (changesSince < 0 || now - changesSince > catalogProperties.getChangeRetention().toMillis()) {
+            reconcileCatalog();
+            return;
+        }
+        long from = changesSince - catalogProperties.getChangeOverlap().toMillis();
+        appliedChanges.values().removeIf(changedAt -> changedAt < from);
+        List<QuestionChangeLog.Change> changes = changeLog.othersSince(from);
+        Set<Long> ids = new LinkedHashSet<>();
+        for (QuestionChangeLog.Change change : changes) {
+            if (!appliedChanges.containsKey(change.id())) ids.add(change.questionId());
+        }
+        if (!ids.isEmpty() && !applyChanges(ids)) return;
+        changes.forEach(change -> appliedChanges.put(change.id(), change.changedAt()));
+        changesSince = now;
+    }
+
+    private boolean applyChanges(Set<Long> ids) {
+        List<Long> all = List.copyOf(ids);
+        for (int attempt = 0; attempt < 3; attempt++) {
+            long revision = catalog.revision();
+            List<QuestionReadDto> found = new ArrayList<>(all.size());
+            for (int from = 0; from < all.size(); from += PATCH_FETCH_SIZE) {
+                for (Question q : questionRepository.findAllByIdIn(all.subList(from, Math.min(from + PATCH_FETCH_SIZE, all.size())))) {
+                    found.add(toReadDto(q));
+                }
+            }
+            Set<Long> removed = new HashSet<>(ids);
+            found.forEach(dto -> removed.remove(dto.id()));
+            if (catalog.applyIfUnchanged(found, removed, revision)) return true;
+        }
+        log.warn("Catalog kept changing while applying other nodes' writes; retrying on the next refresh");
+        return false;
+    }
+
+    private void reconcileCatalog() {
+        List<QuestionReadDto> all = List.of();
+        long since = -1;
+        for (int attempt = 0; attempt < 3; attempt++) {
+            long revision = catalog.revision();
+            // Read before the rows, so a write committed in between is picked up by the next refresh.
+            since = changeLog.now();
+            all = questionRepository.findAllWithAnswers().stream().map(this::toReadDto).toList();
+            if (catalog.loadIfUnchanged(all, revision)) {
+                caughtUp(since);
+                writeCatalogSnapshot();
+                return;
+            }
+        }
+        if (!catalog.isLoaded()) {
+            catalog.load(all);
+            caughtUp(since);
+            return;
+        }
+        log.warn("Catalog kept changing while being reloaded; keeping the current copy");
+    }
+
+    private void caughtUp(long since) {
+        appliedChanges.clear();
+        changesSince = since;
+    }
+
+    /**
+     * Deletes change log rows every node has read by now.
+     */
+    @Scheduled(fixedDelayString = "${catalog.change-prune-interval:PT1H}")
+    public void pruneChangeLog() {
+        int deleted = changeLog.deleteBefore(changeLog.now() - catalogProperties.getChangeRetention().toMillis());
+        if (deleted > 0) log.debug("Deleted {} question change log rows", deleted);
+    }
+
+    /**
+     * Writes the current catalog to the configured snapshot file, if any. Also runs on shutdown.
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void writeCatalogSnapshot() {
+        Path snapshot = snapshotPath();
+        if (snapshot == null || !catalog.isLoaded()) return;
+        try {
+            CatalogSnapshot.write(snapshot, catalog.values());
+        } catch (IOException e) {
+            log.warn("Could not write catalog snapshot {}", snapshot, e);
+        }
+    }
+
+    private Path snapshotPath() {
+        String path = catalogProperties.getSnapshotPath();
+        return (path == null || path.isBlank()) ? null : Path.of(path);
+    }
+
+    /**
+     * Every question, as long as there are at most {@value #MAX_UNPAGED_QUESTIONS}; beyond that
+     * callers have to page through {@link #getQuestions}.
+     */
+    public List<QuestionReadDto> getAllQuestions() {
+        // One row over the limit tells us the bank is too big; below it Spring Data skips the count query.
+        Page<QuestionRow> rows = questionRepository.findRows(
+                PageRequest.of(0, MAX_UNPAGED_QUESTIONS + 1, Sort.by("id")));
+        if (rows.getNumberOfElements() > MAX_UNPAGED_QUESTIONS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "More than " + MAX_UNPAGED_QUESTIONS + " questions; use page and size");
+        }
+        return withAnswers(rows.getContent());
+    }
+
+    public Page<QuestionReadDto> getQuestions(int page, int size) {
+        int p = Math.max(page, 0);
+        int n = Math.min(Math.max(size, 1), MAX_UNPAGED_QUESTIONS);
+        Page<QuestionRow> rows = questionRepository.findRows(PageRequest.of(p, n, Sort.by("id")));
+        return new PageImpl<>(withAnswers(rows.getContent()), rows.getPageable(), rows.getTotalElements());
+    }
+
+    private List<QuestionReadDto> withAnswers(List<QuestionRow> rows) {
+        if (rows.isEmpty()) return List.of();
+        Map<Long, List<String>> answers = new HashMap<>();
+        for (AnswerRow a : questionRepository.findAnswerRows(rows.stream().map(QuestionRow::id).toList())) {
+            answers.computeIfAbsent(a.questionId(), k -> new ArrayList<>()).add(a.text());
+        }
+        List<QuestionReadDto> out = new ArrayList<>(rows.size());
+        for (QuestionRow r : rows) {
+            out.add(new QuestionReadDto(r.id(), r.type(), r.difficulty(), r.category(), r.question(),
+                    r.correctAnswer(), answers.getOrDefault(r.id(), List.of())));
+        }
+        return out;
+    }
+
+    public List<QuestionFacet> getFacets() {
+        if (!catalog.isLoaded()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Question catalog is not loaded yet");
+        }
+        return catalog.facets();
     }
 
-    @Transactional(readOnly = true)
     public Optional<QuestionReadDto> getQuestionByIdDto(Long id) {
+        if (catalog.isLoaded()) return catalog.get(id);
         return questionRepository.findById(id)
                 .map(this::toReadDto);
     }
 
     @Transactional
     public Question createQuestion(QuestionCreateDto dto) {
+        Question saved = questionRepository.save(toNewQuestion(dto));
+        QuestionReadDto read = toReadDto(saved);
+        publish(List.of(saved.getId()), () -> catalog.put(read));
+        return saved;
+    }
+
+    /**
+     * Validates all rows first, then inserts the valid ones with JDBC batching.
+     * Invalid rows and rows already in the bank (or earlier in the import, even under another category or
+     * difficulty) are skipped and reported by their index.
+     */
+    @Transactional
+    public BulkResult importQuestions(List<QuestionCreateDto> rows) {
+        if (rows.size() > MAX_IMPORT_ROWS) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "At most " + MAX_IMPORT_ROWS + " questions per import");
+        }
+
+        List<BulkResult.RowError> errors = new ArrayList<>();
+        Map<Integer, Question> valid = new LinkedHashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            try {
+                QuestionCreateDto row = rows.get(i);
+                checkImportRow(row);
+                valid.put(i, toNewQuestion(row));
+            } catch (IllegalArgumentException e) {
+                errors.add(new BulkResult.RowError(i, e.getMessage()));
+            }
+        }
+
+        Set<String> stored = new HashSet<>(questionRepository.findExistingContentHashes(
+                valid.values().stream().map(Question::getContentHash).toList()));
+        Map<String, Integer> firstRow = new HashMap<>();
+        List<Question> fresh = new ArrayList<>(valid.size());
+        valid.forEach((i, q) -> {
+            Integer earlier = firstRow.putIfAbsent(q.getContentHash(), i);
+            if (stored.contains(q.getContentHash())) {
+                errors.add(new BulkResult.RowError(i, "The same question is already in the bank."));
+            } else if (earlier != null) {
+                errors.add(new BulkResult.RowError(i, "The same question is already in row " + earlier + "."));
+            } else {
+                fresh.add(q);
+            }
+        });
+        errors.sort(Comparator.comparingInt(BulkResult.RowError::index));
+
+        insertBatch(fresh);
+        return new BulkResult(fresh.size(), errors);
+    }
+
+    /**
+     * Inserts the questions whose content hash is not in the bank yet and returns those that were new.
+     * Callers must have removed duplicates within {@code questions} themselves.
+     */
+    @Transactional
+    public List<Question> importNew(List<Question> questions) {
+        if (questions.isEmpty()) return List.of();
+        Set<String> existing = new HashSet<>(questionRepository.findExistingContentHashes(
+                questions.stream().map(Question::getContentHash).toList()));
+        List<Question> fresh = questions.stream().filter(q -> !existing.contains(q.getContentHash())).toList();
+        insertBatch(fresh);
+        return fresh;
+    }
+
+    /**
+     * Computes the content hash of up to {@code limit} questions after {@code afterId} that don't have one yet.
+     * Hashes are unique, so a question whose content is already stored under another id keeps none.
+     *
+     * @return the ids that were looked at, in order; empty once every question has been looked at
+     */
+    @Transactional
+    public List<Long> backfillContentHashes(long afterId, int limit) {
+        List<Long> ids = questionRepository.findIdsWithoutContentHash(afterId, PageRequest.of(0, limit));
+        if (ids.isEmpty()) return ids;
+        Map<String, Question> byHash = new LinkedHashMap<>();
+        for (Question q : questionRepository.findAllByIdIn(ids)) byHash.putIfAbsent(QuestionContentHash.of(q), q);
+        Set<String> taken = new HashSet<>(questionRepository.findExistingContentHashes(byHash.keySet()));
+        byHash.forEach((hash, q) -> {
+            if (!taken.contains(hash)) q.setContentHash(hash);
+        });
+        return ids;
+    }
+
+    private void insertBatch(List<Question> questions) {
+        if (questions.isEmpty()) return;
+        batchWriter.insertAll(questions);
+        List<QuestionReadDto> imported = questions.stream().map(this::toReadDto).toList();
+        publish(questions.stream().map(Question::getId).toList(), () -> {
+            catalog.putAll(imported);
+            // JDBC inserts bypass Hibernate, so cached search results don't know about them.
+            entityManagerFactory.getCache().unwrap(org.hibernate.Cache.class).evictQueryRegions();
+        });
+    }
+
+    static void checkImportRow(QuestionCreateDto row) {
+        if (row == null) throw new IllegalArgumentException("Row is empty.");
+        requireText("type", row.type(), 50);
+        requireText("difficulty", row.difficulty(), 50);
+        requireText("category", row.category(), 100);
+        requireText("question", row.question(), Integer.MAX_VALUE);
+        requireText("correctAnswer", row.correctAnswer(), Integer.MAX_VALUE);
+        if (row.incorrectAnswers() == null || row.incorrectAnswers().stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("incorrectAnswers must be a list of strings.");
+        }
+    }
+
+    private static void requireText(String field, String value, int maxLength) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException(field + " must not be blank.");
+        }
+        if (value.trim().length() > maxLength) {
+            throw new IllegalArgumentException(field + " must be at most " + maxLength + " characters.");
+        }
+    }
+
+    static Question toNewQuestion(QuestionCreateDto dto) {
         var wrongs = new LinkedHashSet<String>();
         for (String s : dto.incorrectAnswers()) {
             String trimmed = s.trim();
@@ -58,8 +411,8 @@ public class QuestionService {
             ia.setText(wa);
             q.addIncorrectAnswer(ia);
         }
-
-        return questionRepository.save(q);
+        q.setContentHash(QuestionContentHash.of(q));
+        return q;
     }
 
     @Transactional
@@ -73,29 +426,188 @@ public class QuestionService {
         q.setQuestion(dto.question().trim());
         q.setCorrectAnswer(dto.correctAnswer().trim());
 
-        var it = q.getIncorrectAnswers().iterator();
-        while (it.hasNext()) {
-            var ia = it.next();
-            it.remove();
-            ia.setQuestion(null);
+        applyIncorrectAnswers(q, validIncorrectAnswers(dto.incorrectAnswers(), dto.correctAnswer()));
+        q.setContentHash(QuestionContentHash.of(q));
+
+        Question saved = questionRepository.save(q);
+        QuestionReadDto read = toReadDto(saved);
+        publish(List.of(id), () -> catalog.put(read));
+        return saved;
+    }
+
+    /**
+     * Applies many partial edits in one transaction. Fields left null are not changed.
+     * Rows that fail validation, reference unknown ids or would give a question the content of another
+     * one (stored, or edited earlier in the request) are skipped and reported.
+     */
+    @Transactional
+    public BulkResult patchQuestions(List<QuestionPatchDto> patches) {
+        if (patches.size() > MAX_PATCH_ROWS) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "At most " + MAX_PATCH_ROWS + " edits per request");
         }
 
-        if (dto.incorrectAnswers() != null) {
-            for (String raw : dto.incorrectAnswers()) {
-                String t = (raw == null) ? null : raw.trim();
-                boolean valid = t != null
-                        && !t.isEmpty()
-                        && !t.equals(dto.correctAnswer());
+        List<Long> ids = patches.stream()
+                .filter(Objects::nonNull).map(QuestionPatchDto::id).filter(Objects::nonNull)
+                .distinct().toList();
+        Map<Long, Question> byId = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += PATCH_FETCH_SIZE) {
+            for (Question q : questionRepository.findAllByIdIn(ids.subList(from, Math.min(from + PATCH_FETCH_SIZE, ids.size())))) {
+                byId.put(q.getId(), q);
+            }
+        }
+
+        // Content hashes are unique, so a clash would otherwise fail the whole request at commit.
+        Set<String> looked = new HashSet<>();
+        for (QuestionPatchDto patch : patches) {
+            Question q = (patch == null || patch.id() == null) ? null : byId.get(patch.id());
+            if (q == null) continue;
+            try {
+                checkPatch(q, patch);
+                looked.add(patchedHash(q, patch));
+            } catch (IllegalArgumentException e) {
+                // reported below
+            }
+        }
+        Map<String, Long> owners = contentHashOwners(looked);
 
-                if (valid) {
-                    IncorrectAnswer ia = new IncorrectAnswer();
-                    ia.setText(t);
-                    q.addIncorrectAnswer(ia);
+        List<BulkResult.RowError> errors = new ArrayList<>();
+        Set<Question> changed = new LinkedHashSet<>();
+        for (int i = 0; i < patches.size(); i++) {
+            QuestionPatchDto patch = patches.get(i);
+            try {
+                if (patch == null || patch.id() == null) throw new IllegalArgumentException("id is required.");
+                Question q = byId.get(patch.id());
+                if (q == null) throw new QuestionNotFoundException(patch.id());
+                checkPatch(q, patch);
+                String hash = patchedHash(q, patch);
+                // Differs from the looked-up one when an earlier row edited the same question.
+                if (looked.add(hash)) owners.putAll(contentHashOwners(Set.of(hash)));
+                Long owner = owners.get(hash);
+                if (owner != null && !owner.equals(q.getId())) {
+                    throw new IllegalArgumentException("Question " + owner + " has the same content.");
                 }
+                applyPatch(q, patch);
+                // The question keeps its old hash claimed too: the rows are only written at commit.
+                owners.put(hash, q.getId());
+                changed.add(q);
+            } catch (IllegalArgumentException e) {
+                errors.add(new BulkResult.RowError(i, e.getMessage()));
             }
         }
 
-        return questionRepository.save(q);
+        List<QuestionReadDto> updated = changed.stream().map(this::toReadDto).toList();
+        if (!changed.isEmpty()) publish(changed.stream().map(Question::getId).toList(), () -> catalog.putAll(updated));
+        return new BulkResult(patches.size() - errors.size(), errors);
+    }
+
+    // Checks the whole row before anything is applied, so a rejected row leaves its question untouched.
+    private void checkPatch(Question q, QuestionPatchDto patch) {
+        if (patch.type() != null) requireText("type", patch.type(), 50);
+        if (patch.difficulty() != null) requireText("difficulty", patch.difficulty(), 50);
+        if (patch.category() != null) requireText("category", patch.category(), 100);
+        if (patch.question() != null) requireText("question", patch.question(), Integer.MAX_VALUE);
+        if (patch.correctAnswer() != null) requireText("correctAnswer", patch.correctAnswer(), Integer.MAX_VALUE);
+        if (patch.incorrectAnswers() != null) {
+            String correct = patch.correctAnswer() != null ? patch.correctAnswer().trim() : q.getCorrectAnswer();
+            if (validIncorrectAnswers(patch.incorrectAnswers(), correct).isEmpty()) {
+                throw new IllegalArgumentException("At least one incorrect answer different from the correct answer is required.");
+            }
+        }
+    }
+
+    private static String patchedHash(Question q, QuestionPatchDto patch) {
+        String correct = patch.correctAnswer() != null ? patch.correctAnswer().trim() : q.getCorrectAnswer();
+        List<String> wrongs = patch.incorrectAnswers() != null
+                ? validIncorrectAnswers(patch.incorrectAnswers(), correct)
+                : q.getIncorrectAnswers().stream().map(IncorrectAnswer::getText).toList();
+        return QuestionContentHash.of(patch.type() != null ? patch.type().trim() : q.getType(),
+                patch.question() != null ? patch.question().trim() : q.getQuestion(), correct, wrongs);
+    }
+
+    private Map<String, Long> contentHashOwners(Collection<String> hashes) {
+        List<String> all = List.copyOf(hashes);
+        Map<String, Long> owners = new HashMap<>();
+        for (int from = 0; from < all.size(); from += PATCH_FETCH_SIZE) {
+            for (ContentHashRow row : questionRepository.findContentHashOwners(all.subList(from, Math.min(from + PATCH_FETCH_SIZE, all.size())))) {
+                owners.put(row.contentHash(), row.id());
+            }
+        }
+        return owners;
+    }
+
+    private void applyPatch(Question q, QuestionPatchDto patch) {
+        if (patch.type() != null) q.setType(patch.type().trim());
+        if (patch.difficulty() != null) q.setDifficulty(patch.difficulty().trim());
+        if (patch.category() != null) q.setCategory(patch.category().trim());
+        if (patch.question() != null) q.setQuestion(patch.question().trim());
+        if (patch.correctAnswer() != null) q.setCorrectAnswer(patch.correctAnswer().trim());
+        if (patch.incorrectAnswers() != null) {
+            applyIncorrectAnswers(q, validIncorrectAnswers(patch.incorrectAnswers(), q.getCorrectAnswer()));
+        }
+        q.setContentHash(QuestionContentHash.of(q));
+    }
+
+    private static List<String> validIncorrectAnswers(List<String> raw, String correctAnswer) {
+        List<String> out = new ArrayList<>();
+        if (raw == null) return out;
+        for (String r : raw) {
+            String t = (r == null) ? null : r.trim();
+            if (t != null && !t.isEmpty() && !t.equals(correctAnswer)) out.add(t);
+        }
+        return out;
+    }
+
+    /**
+     * Brings the ordered answer list to {@code desired} with as few row changes as possible:
+     * rows already in place are left alone, rows with a wanted text are moved, leftover rows
+     * get their text rewritten in place, and only the remainder is inserted or deleted.
+     */
+    private void applyIncorrectAnswers(Question q, List<String> desired) {
+        List<IncorrectAnswer> current = q.getIncorrectAnswers();
+        int n = desired.size();
+        IncorrectAnswer[] placed = new IncorrectAnswer[n];
+        List<IncorrectAnswer> unused = new ArrayList<>();
+
+        for (int i = 0; i < current.size(); i++) {
+            IncorrectAnswer ia = current.get(i);
+            if (i < n && desired.get(i).equals(ia.getText())) placed[i] = ia;
+            else unused.add(ia);
+        }
+        for (int i = 0; i < n; i++) {
+            if (placed[i] != null) continue;
+            for (var it = unused.iterator(); it.hasNext(); ) {
+                IncorrectAnswer ia = it.next();
+                if (desired.get(i).equals(ia.getText())) {
+                    placed[i] = ia;
+                    it.remove();
+                    break;
+                }
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            if (placed[i] != null) continue;
+            IncorrectAnswer ia;
+            if (!unused.isEmpty()) {
+                ia = unused.remove(0);
+            } else {
+                ia = new IncorrectAnswer();
+                ia.setQuestion(q);
+            }
+            ia.setText(desired.get(i));
+            placed[i] = ia;
+        }
+
+        for (int i = 0; i < n; i++) {
+            if (i >= current.size()) current.add(placed[i]);
+            else if (current.get(i) != placed[i]) current.set(i, placed[i]);
+        }
+        while (current.size() > n) {
+            current.remove(current.size() - 1);
+        }
+        for (IncorrectAnswer orphan : unused) {
+            orphan.setQuestion(null);
+        }
     }
 
     @Transactional
@@ -103,30 +615,238 @@ public class QuestionService {
         Question q = questionRepository.findById(id)
                 .orElseThrow(() -> new QuestionNotFoundException(id));
         questionRepository.delete(q);
+        publish(List.of(id), () -> catalog.remove(id));
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Version tag for the result of a search with the given parameters, or {@code null} when the
+     * catalog isn't loaded and results can't be versioned without running the search. Writes made on
+     * other nodes change it once {@link #refreshCatalog} has picked them up.
+     */
+    public String searchETag(Object... params) {
+        if (!catalog.isLoaded()) return null;
+        return QuestionETags.of(catalog.epoch(), catalog.revision(), params);
+    }
+
+    /**
+     * Questions matching the filters, ordered by id unless {@code sort} says otherwise. With {@code q},
+     * every word of it must start a word of the question text or of an answer; {@code sort=relevance}
+     * then puts the best matches first. Relevance needs the catalog: before it is loaded such a search
+     * is ordered by id, and words glued to punctuation are not found.
+     */
+    // Not transactional on purpose: callers waiting on a coalesced search must not hold a connection.
     public Page<QuestionReadDto> search(String category, String difficulty, String type, String q,
                                         int page, int size, String sort) {
+        int p = Math.max(page, 0);
+        int n = Math.min(Math.max(size, 1), 100);
+        String text = nullIfBlank(q);
+        if (text != null && catalog.isLoaded()) {
+            return searchText(category, difficulty, type, text, p, n, sort);
+        }
+
         Sort s;
-        if (sort == null || sort.isBlank()) {
+        if (sort == null || sort.isBlank() || RELEVANCE.equals(sortProperty(sort))) {
             s = Sort.by(Sort.Direction.ASC, "id");
         } else {
             boolean desc = sort.startsWith("-");
             Sort.Direction dir = desc ? Sort.Direction.DESC : Sort.Direction.ASC;
-            String prop = desc ? sort.substring(1) : sort;
+            String prop = sortProperty(sort);
+            if (!KEYSET_PROPERTIES.contains(prop)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported sort property: " + prop);
+            }
             s = Sort.by(dir, prop);
+            if (!"id".equals(prop)) s = s.and(Sort.by(Sort.Direction.ASC, "id"));
         }
 
-        Page<Question> found = questionRepository.search(
-                nullIfBlank(category),
-                nullIfBlank(difficulty),
-                nullIfBlank(type),
-                nullIfBlank(q),
-                PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), 100), s)
-        );
+        String c = QuestionCatalog.key(category), d = QuestionCatalog.key(difficulty), t = QuestionCatalog.key(type);
+        PageRequest pageable = PageRequest.of(p, n, s);
+        List<String> words = QuestionTextIndex.tokenize(text);
+        if (text != null && words.isEmpty()) return Page.empty(pageable);
+        // The revision keeps a search that started before a write from answering callers that arrive after it.
+        SearchKey key = new SearchKey(catalog.revision(), c, d, t, words, pageable);
+        return searchCoalescer.run(key, () -> {
+            Page<Long> ids = words.isEmpty()
+                    ? questionRepository.searchIds(c, d, t, pageable)
+                    : questionRepository.searchIdsByWords(c, d, t, words, pageable);
+            return new PageImpl<>(findDtosInOrder(ids.getContent()), ids.getPageable(), ids.getTotalElements());
+        });
+    }
+
+    private record SearchKey(long revision, String category, String difficulty, String type, List<String> words,
+                             PageRequest pageable) {
+    }
 
-        return found.map(this::toReadDto);
+    private Page<QuestionReadDto> searchText(String category, String difficulty, String type, String text,
+                                             int page, int size, String sort) {
+        // Best match first
+        List<QuestionReadDto> matches = new ArrayList<>(catalog.textSearch(text, category, difficulty, type));
+        String spec = (sort == null || sort.isBlank()) ? "id" : sort.trim();
+        boolean desc = spec.startsWith("-");
+        String prop = sortProperty(spec);
+        Sort s = Sort.unsorted();
+        if (RELEVANCE.equals(prop)) {
+            if (desc) Collections.reverse(matches);
+        } else {
+            matches.sort(propertyOrder(prop, desc));
+            s = Sort.by(desc ? Sort.Direction.DESC : Sort.Direction.ASC, prop);
+        }
+
+        int from = (int) Math.min((long) page * size, matches.size());
+        int to = Math.min(from + size, matches.size());
+        return new PageImpl<>(matches.subList(from, to), PageRequest.of(page, size, s), matches.size());
+    }
+
+    @Transactional(readOnly = true)
+    public QuestionCursorPage searchAfter(String category, String difficulty, String type, String q,
+                                          String cursor, int size, String sort) {
+        int n = Math.min(Math.max(size, 1), 100);
+        String spec = (sort == null || sort.isBlank()) ? "id" : sort.trim();
+        boolean desc = spec.startsWith("-");
+        String prop = sortProperty(spec);
+        if (!KEYSET_PROPERTIES.contains(prop)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported sort for cursor paging: " + spec);
+        }
+
+        QuestionCursor after = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                after = QuestionCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+            }
+            if (!after.sort().equals(spec)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor was issued for sort " + after.sort());
+            }
+        }
+
+        String text = nullIfBlank(q);
+        List<String> words = QuestionTextIndex.tokenize(text);
+        List<QuestionReadDto> content;
+        boolean more;
+        if (text != null && words.isEmpty()) {
+            content = List.of();
+            more = false;
+        } else if (text != null && catalog.isLoaded()) {
+            Comparator<QuestionReadDto> order = propertyOrder(prop, desc);
+            List<QuestionReadDto> matches = new ArrayList<>(catalog.textSearch(text, category, difficulty, type));
+            matches.sort(order);
+            int from = 0;
+            if (after != null) {
+                int at = Collections.binarySearch(matches, probe(prop, after), order);
+                from = at >= 0 ? at + 1 : -at - 1;
+            }
+            int to = Math.min(from + n, matches.size());
+            content = matches.subList(from, to);
+            more = to < matches.size();
+        } else {
+            Object afterKey = after == null ? null : ("id".equals(prop) ? Long.valueOf(after.id()) : after.key());
+            List<Long> ids = questionRepository.searchIdsAfter(
+                    QuestionCatalog.key(category), QuestionCatalog.key(difficulty), QuestionCatalog.key(type), words,
+                    prop, desc, afterKey, after == null ? null : after.id(), n + 1);
+            more = ids.size() > n;
+            content = findDtosInOrder(more ? ids.subList(0, n) : ids);
+        }
+
+        String next = null;
+        if (more && !content.isEmpty()) {
+            QuestionReadDto last = content.get(content.size() - 1);
+            next = new QuestionCursor(spec, sortKey(last, prop), last.id()).encode();
+        }
+        return new QuestionCursorPage(List.copyOf(content), next);
+    }
+
+    private static Comparator<QuestionReadDto> propertyOrder(String prop, boolean desc) {
+        Comparator<QuestionReadDto> order = switch (prop) {
+            case "id" -> Comparator.comparing(QuestionReadDto::id);
+            case "type" -> Comparator.comparing(QuestionReadDto::type, String.CASE_INSENSITIVE_ORDER);
+            case "difficulty" -> Comparator.comparing(QuestionReadDto::difficulty, String.CASE_INSENSITIVE_ORDER);
+            case "category" -> Comparator.comparing(QuestionReadDto::category, String.CASE_INSENSITIVE_ORDER);
+            case "question" -> Comparator.comparing(QuestionReadDto::question, String.CASE_INSENSITIVE_ORDER);
+            case "correctAnswer" -> Comparator.comparing(QuestionReadDto::correctAnswer, String.CASE_INSENSITIVE_ORDER);
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported sort property: " + prop);
+        };
+        if (desc) order = order.reversed();
+        return order.thenComparing(QuestionReadDto::id);
+    }
+
+    private static String sortKey(QuestionReadDto dto, String prop) {
+        return switch (prop) {
+            case "type" -> dto.type();
+            case "difficulty" -> dto.difficulty();
+            case "category" -> dto.category();
+            case "question" -> dto.question();
+            case "correctAnswer" -> dto.correctAnswer();
+            default -> null;
+        };
+    }
+
+    private static QuestionReadDto probe(String prop, QuestionCursor at) {
+        String k = at.key();
+        return switch (prop) {
+            case "type" -> new QuestionReadDto(at.id(), k, null, null, null, null, List.of());
+            case "difficulty" -> new QuestionReadDto(at.id(), null, k, null, null, null, List.of());
+            case "category" -> new QuestionReadDto(at.id(), null, null, k, null, null, List.of());
+            case "question" -> new QuestionReadDto(at.id(), null, null, null, k, null, List.of());
+            case "correctAnswer" -> new QuestionReadDto(at.id(), null, null, null, null, k, List.of());
+            default -> new QuestionReadDto(at.id(), null, null, null, null, null, List.of());
+        };
+    }
+
+    private static String sortProperty(String sort) {
+        return sort.startsWith("-") ? sort.substring(1) : sort;
+    }
+
+    /**
+     * Writes every question as one JSON line, walking the table by id in batches so that
+     * only one batch is held in memory at a time. Batches are read as rows rather than entities:
+     * with open-in-view the request's persistence context stays open for the whole response and
+     * would otherwise keep every question written so far.
+     */
+    public void exportNdjson(OutputStream out) throws IOException {
+        long after = Long.MIN_VALUE;
+        while (true) {
+            List<QuestionRow> rows = questionRepository.findRowsAfter(after, PageRequest.of(0, EXPORT_BATCH_SIZE));
+            if (rows.isEmpty()) break;
+            for (QuestionReadDto dto : withAnswers(rows)) {
+                out.write(objectMapper.writeValueAsBytes(dto));
+                out.write('\n');
+            }
+            out.flush();
+            if (rows.size() < EXPORT_BATCH_SIZE) break;
+            after = rows.get(rows.size() - 1).id();
+        }
+    }
+
+    private List<QuestionReadDto> findDtosInOrder(List<Long> ids) {
+        if (ids.isEmpty()) return List.of();
+        Map<Long, Question> byId = questionRepository.findAllByIdIn(ids).stream()
+                .collect(Collectors.toMap(Question::getId, Function.identity()));
+        List<QuestionReadDto> out = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Question found = byId.get(id);
+            if (found != null) out.add(toReadDto(found));
+        }
+        return out;
+    }
+
+    // Logs the written questions along with the write, so other nodes pick them up, and applies the
+    // write to this node's catalog once committed.
+    private void publish(Collection<Long> ids, Runnable catalogUpdate) {
+        changeLog.record(ids);
+        afterCommit(catalogUpdate);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
     }
 
     private String nullIfBlank(String s) {
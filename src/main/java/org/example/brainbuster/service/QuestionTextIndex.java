@@ -0,0 +1,110 @@
+package org.example.brainbuster.service;
+
+import org.example.brainbuster.dto.question.QuestionReadDto;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index over question text and answers. Not thread-safe; guarded by {@link QuestionCatalog}.
+ */
+final class QuestionTextIndex {
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final float QUESTION_WEIGHT = 2f;
+    private static final float ANSWER_WEIGHT = 1f;
+
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private int documents = 0;
+
+    void add(QuestionReadDto dto) {
+        termWeights(dto).forEach((term, weight) ->
+                terms.computeIfAbsent(term, t -> new Postings()).add(dto.id(), weight));
+        documents++;
+    }
+
+    void remove(QuestionReadDto dto) {
+        for (String term : termWeights(dto).keySet()) {
+            Postings postings = terms.get(term);
+            if (postings == null) continue;
+            postings.remove(dto.id());
+            if (postings.size == 0) terms.remove(term);
+        }
+        documents--;
+    }
+
+    void clear() {
+        terms.clear();
+        documents = 0;
+    }
+
+    /**
+     * Scores every question in which each query token is a prefix of some indexed word.
+     */
+    Map<Long, Float> search(String query) {
+        Map<Long, Float> scores = null;
+        for (String token : new LinkedHashSet<>(tokenize(query))) {
+            Map<Long, Float> tokenScores = new HashMap<>();
+            for (Postings postings : terms.subMap(token, true, token + Character.MAX_VALUE, true).values()) {
+                float idf = (float) Math.log(1 + (double) documents / postings.size);
+                for (int i = 0; i < postings.size; i++) {
+                    tokenScores.merge(postings.ids[i], postings.weights[i] * idf, Float::sum);
+                }
+            }
+            if (scores == null) {
+                scores = tokenScores;
+            } else {
+                scores.keySet().retainAll(tokenScores.keySet());
+                scores.replaceAll((id, score) -> score + tokenScores.get(id));
+            }
+            if (scores.isEmpty()) break;
+        }
+        return scores == null ? Map.of() : scores;
+    }
+
+    private static Map<String, Float> termWeights(QuestionReadDto dto) {
+        Map<String, Float> weights = new HashMap<>();
+        for (String t : tokenize(dto.question())) weights.merge(t, QUESTION_WEIGHT, Float::sum);
+        for (String t : tokenize(dto.correctAnswer())) weights.merge(t, ANSWER_WEIGHT, Float::sum);
+        for (String answer : dto.incorrectAnswers()) {
+            for (String t : tokenize(answer)) weights.merge(t, ANSWER_WEIGHT, Float::sum);
+        }
+        return weights;
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) return List.of();
+        List<String> out = new ArrayList<>();
+        for (String t : SEPARATORS.split(text.toLowerCase(Locale.ROOT))) {
+            if (!t.isEmpty()) out.add(t);
+        }
+        return out;
+    }
+
+    private static final class Postings {
+        long[] ids = new long[4];
+        float[] weights = new float[4];
+        int size = 0;
+
+        void add(long id, float weight) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            ids[size] = id;
+            weights[size] = weight;
+            size++;
+        }
+
+        void remove(long id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    size--;
+                    ids[i] = ids[size];
+                    weights[i] = weights[size];
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.example.brainbuster.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Lets concurrent identical searches share one database round trip: the first caller for a key runs
+ * the search, callers arriving while it is in flight wait for and receive the same result.
+ * Nothing is kept once the search completes.
+ * <p>
+ * {@code questions.search.calls} counts searches by {@code coalesced=true|false}; the coalescing
+ * ratio is the share of {@code true}.
+ */
+@Component
+public class SearchCoalescer {
+
+    private final Map<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Counter executed;
+    private final Counter coalesced;
+
+    public SearchCoalescer(MeterRegistry registry) {
+        this.executed = Counter.builder("questions.search.calls")
+                .tag("coalesced", "false")
+                .description("Question searches that ran their own query")
+                .register(registry);
+        this.coalesced = Counter.builder("questions.search.calls")
+                .tag("coalesced", "true")
+                .description("Question searches served by an identical search already in flight")
+                .register(registry);
+        Gauge.builder("questions.search.in_flight", inFlight, Map::size)
+                .description("Distinct question searches currently running")
+                .register(registry);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T run(Object key, Supplier<T> search) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            coalesced.increment();
+            try {
+                return (T) running.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException re) throw re;
+                if (e.getCause() instanceof Error err) throw err;
+                throw e;
+            }
+        }
+
+        executed.increment();
+        try {
+            T result = search.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package org.example.brainbuster.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.brainbuster.model.SeenQuestions;
+import org.example.brainbuster.repository.SeenQuestionsRepository;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
+
+/**
+ * Which questions each player has already been dealt, kept as compressed bitmaps of question ids:
+ * persisted per player and cached for the most recently active ones.
+ * <p>
+ * Changes are applied to the cached bitmap right away and written behind by {@link #flush}, which
+ * merges them into the stored bitmap so that nodes sharing a player don't overwrite each other.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SeenQuestionService {
+
+    private static final int MAX_CACHED_PLAYERS = 20_000;
+    private static final int MAX_SAVE_ATTEMPTS = 5;
+
+    private final SeenQuestionsRepository repository;
+
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+    // Players with changes not yet written; their entries stay cached until they are.
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+    /**
+     * One player's bitmap, loaded on first use, and the changes made here since it was last written.
+     * Guarded by itself so players don't wait on each other. An entry leaving the cache is marked
+     * evicted under that lock, so a caller still holding it goes back for the current one.
+     */
+    private static final class Entry {
+        RoaringBitmap seen;
+        RoaringBitmap added = new RoaringBitmap();
+        RoaringBitmap removed = new RoaringBitmap();
+        boolean evicted;
+        volatile long lastUsed;
+
+        boolean changed() {
+            return !added.isEmpty() || !removed.isEmpty();
+        }
+    }
+
+    /**
+     * Tells whether {@code username} has seen a question, as of now. Safe to use while the player's record changes.
+     */
+    public LongPredicate seenBy(String username) {
+        RoaringBitmap seen = withEntry(username, e -> load(username, e).clone());
+        return id -> fits(id) && seen.contains((int) id);
+    }
+
+    public void markSeen(String username, Collection<Long> questionIds) {
+        withEntry(username, e -> {
+            RoaringBitmap seen = load(username, e);
+            for (long id : questionIds) {
+                if (!fits(id)) continue;
+                seen.add((int) id);
+                e.added.add((int) id);
+                e.removed.remove((int) id);
+            }
+            dirty.add(username);
+            return null;
+        });
+    }
+
+    /**
+     * Forgets the given questions for {@code username}, e.g. once every question of a bucket has been seen.
+     */
+    public void forget(String username, long[] questionIds) {
+        withEntry(username, e -> {
+            RoaringBitmap seen = load(username, e);
+            for (long id : questionIds) {
+                if (!fits(id)) continue;
+                seen.remove((int) id);
+                e.removed.add((int) id);
+                e.added.remove((int) id);
+            }
+            dirty.add(username);
+            return null;
+        });
+    }
+
+    private <T> T withEntry(String username, Function<Entry, T> action) {
+        while (true) {
+            Entry e = cache.computeIfAbsent(username, u -> new Entry());
+            synchronized (e) {
+                if (e.evicted) continue;
+                e.lastUsed = System.nanoTime();
+                return action.apply(e);
+            }
+        }
+    }
+
+    private RoaringBitmap load(String username, Entry e) {
+        if (e.seen == null) {
+            e.seen = repository.findById(username).map(s -> deserialize(s.getBitmap())).orElseGet(RoaringBitmap::new);
+        }
+        return e.seen;
+    }
+
+    /**
+     * Writes the changes made since the last flush, then trims the cache to {@value #MAX_CACHED_PLAYERS} players.
+     */
+    @Scheduled(fixedDelayString = "${seen-questions.flush-interval:PT1S}")
+    public void flush() {
+        for (Iterator<String> it = dirty.iterator(); it.hasNext(); ) {
+            String username = it.next();
+            it.remove();
+            Entry e = cache.get(username);
+            if (e == null) continue;
+
+            RoaringBitmap added;
+            RoaringBitmap removed;
+            synchronized (e) {
+                added = e.added;
+                removed = e.removed;
+                e.added = new RoaringBitmap();
+                e.removed = new RoaringBitmap();
+            }
+            try {
+                RoaringBitmap stored = save(username, added, removed);
+                synchronized (e) {
+                    // Picks up what other nodes wrote, keeping what changed here in the meantime.
+                    stored.or(e.added);
+                    stored.andNot(e.removed);
+                    e.seen = stored;
+                }
+            } catch (RuntimeException ex) {
+                synchronized (e) {
+                    added.andNot(e.removed);
+                    added.or(e.added);
+                    removed.andNot(e.added);
+                    removed.or(e.removed);
+                    e.added = added;
+                    e.removed = removed;
+                }
+                dirty.add(username);
+                log.warn("Could not save seen questions of {}; retrying on the next run", username, ex);
+            }
+        }
+        evictLeastRecentlyUsed();
+    }
+
+    /**
+     * Applies the given changes to the stored bitmap, which other nodes may have changed since this one
+     * read it, and writes it back if nobody wrote it in between.
+     *
+     * @return the bitmap as written
+     */
+    private RoaringBitmap save(String username, RoaringBitmap added, RoaringBitmap removed) {
+        for (int attempt = 0; attempt < MAX_SAVE_ATTEMPTS; attempt++) {
+            Optional<SeenQuestions> row = repository.findById(username);
+            RoaringBitmap merged = row.map(r -> deserialize(r.getBitmap())).orElseGet(RoaringBitmap::new);
+            merged.or(added);
+            merged.andNot(removed);
+            merged.runOptimize();
+            byte[] bytes = serialize(merged);
+            LocalDateTime now = LocalDateTime.now();
+            int written = row.isPresent()
+                    ? repository.updateIfVersion(username, row.get().getVersion(), bytes, now)
+                    : repository.insertIfAbsent(username, bytes, now);
+            if (written == 1) return merged;
+        }
+        throw new IllegalStateException("Seen questions kept changing while being saved");
+    }
+
+    private void evictLeastRecentlyUsed() {
+        int excess = cache.size() - MAX_CACHED_PLAYERS;
+        if (excess <= 0) return;
+
+        List<Map.Entry<String, Long>> byUse = new ArrayList<>(cache.size());
+        cache.forEach((username, e) -> byUse.add(Map.entry(username, e.lastUsed)));
+        byUse.sort(Map.Entry.comparingByValue());
+        for (Map.Entry<String, Long> candidate : byUse) {
+            if (excess == 0) break;
+            Entry e = cache.get(candidate.getKey());
+            if (e == null) continue;
+            synchronized (e) {
+                if (e.evicted || e.changed()) continue;
+                e.evicted = true;
+                cache.remove(candidate.getKey(), e);
+            }
+            excess--;
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        flush();
+    }
+
+    // Question ids come from an auto-increment column; anything past the int range is simply not tracked.
+    private static boolean fits(long id) {
+        return id >= 0 && id <= Integer.MAX_VALUE;
+    }
+
+    private static byte[] serialize(RoaringBitmap bitmap) {
+        try {
+            var bytes = new ByteArrayOutputStream(bitmap.serializedSizeInBytes());
+            bitmap.serialize(new DataOutputStream(bytes));
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static RoaringBitmap deserialize(byte[] bytes) {
+        try {
+            RoaringBitmap bitmap = new RoaringBitmap();
+            bitmap.deserialize(new DataInputStream(new ByteArrayInputStream(bytes)));
+            return bitmap;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.brainbuster.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Where single-player sessions live between requests. Lookups on one node return the same
+ * {@link SpSession} instance; callers move it on with {@link #transition}.
+ */
+public interface SessionStore {
+
+    Optional<SpSession> find(UUID id);
+
+    /**
+     * Sessions of one player, in no particular order.
+     */
+    List<SpSession> findByPlayer(String playerUsername);
+
+    void put(SpSession session);
+
+    /**
+     * Moves the session on from {@code expected} to {@code next} and records the change.
+     *
+     * @return false if the session had already moved on from {@code expected}; nothing is recorded then
+     */
+    default boolean transition(SpSession session, SpSession.Progress expected, SpSession.Progress next) {
+        return session.transition(expected, next);
+    }
+
+    /**
+     * Deletes the session everywhere.
+     *
+     * @return whether this call removed the session from this node (false if it was already gone or replaced)
+     */
+    boolean remove(SpSession session);
+
+    /**
+     * Frees this node's copy of the session to save memory. Stores that share sessions between nodes
+     * keep the session itself; others lose it.
+     *
+     * @return whether this call freed the copy
+     */
+    default boolean evict(SpSession session) {
+        return remove(session);
+    }
+
+    /**
+     * Sessions held in this node's memory.
+     */
+    Collection<SpSession> local();
+
+    /**
+     * Drops persisted sessions untouched since the given epoch millis: all of them before {@code idleBefore},
+     * finished, cancelled or aborted ones before {@code finishedBefore}.
+     */
+    default void purge(long idleBefore, long finishedBefore) {
+    }
+}
@@ -0,0 +1,129 @@
+package org.example.brainbuster.service;
+
+import org.example.brainbuster.dto.game.QuestionPayload;
+import org.example.brainbuster.dto.question.QuestionReadDto;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Choices shown for the question at a given index of a single-player game. Order and choice ids are
+ * keyed hashes of the session id and index, so they are the same every time (on every node) and need
+ * not be stored, yet the client cannot tell which id is the correct one.
+ */
+@Component
+public class SpChoices {
+
+    private static final int CHOICE_ID_BYTES = 12;
+    private static final int SALT_BYTES = 16;
+    private static final String VOID_PROMPT = "This question was removed from the bank; continue to the next one.";
+    private static final String VOID_CHOICE = "Continue";
+
+    private final QuestionCatalog catalog;
+    private final JwtService jwtService;
+
+    public SpChoices(QuestionCatalog catalog, JwtService jwtService) {
+        this.catalog = catalog;
+        this.jwtService = jwtService;
+    }
+
+    /**
+     * @param correctChoiceId null for a {@link #voided} question, which no choice answers correctly
+     */
+    public record Deal(QuestionReadDto question, List<QuestionPayload.Choice> choices, String correctChoiceId) {
+        public QuestionPayload payload(int index, int total) {
+            return new QuestionPayload(question.id(), question.question(), choices, index, total);
+        }
+
+        public boolean isCorrect(String choiceId) {
+            return correctChoiceId != null && correctChoiceId.equals(choiceId);
+        }
+
+        boolean isCorrect(QuestionPayload.Choice choice) {
+            return isCorrect(choice.choiceId());
+        }
+
+        public boolean voided() {
+            return correctChoiceId == null;
+        }
+    }
+
+    /**
+     * One secret salt per choice of a deal, in the same order. Revealed once the game is scored.
+     */
+    public List<String> salts(UUID sessionId, int index, Deal deal) {
+        Base64.Encoder base64 = Base64.getUrlEncoder().withoutPadding();
+        List<String> salts = new ArrayList<>(deal.choices().size());
+        for (int i = 0; i < deal.choices().size(); i++) {
+            byte[] mac = jwtService.hmac("sp-salt|" + sessionId + "|" + index + "|" + i);
+            salts.add(base64.encodeToString(Arrays.copyOf(mac, SALT_BYTES)));
+        }
+        return salts;
+    }
+
+    /**
+     * Hides whether a choice is correct until its salt is revealed:
+     * base64url(SHA-256(salt + ":" + choiceId + ":" + (correct ? "1" : "0"))).
+     */
+    public static String commitment(String salt, String choiceId, boolean correct) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest((salt + ":" + choiceId + ":" + (correct ? "1" : "0")).getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public List<String> commitments(UUID sessionId, int index, Deal deal) {
+        List<String> salts = salts(sessionId, index, deal);
+        List<String> commitments = new ArrayList<>(salts.size());
+        for (int i = 0; i < salts.size(); i++) {
+            QuestionPayload.Choice choice = deal.choices().get(i);
+            commitments.add(commitment(salts.get(i), choice.choiceId(), deal.isCorrect(choice)));
+        }
+        return commitments;
+    }
+
+    /**
+     * Deals the question as it is in the catalog now. One removed from the bank since the game started is
+     * void: it is shown with a single choice to move on, which scores nothing.
+     */
+    public Deal deal(UUID sessionId, int index, long questionId) {
+        return catalog.get(questionId)
+                .map(dto -> deal(sessionId, index, dto))
+                .orElseGet(() -> voided(sessionId, index, questionId));
+    }
+
+    private Deal voided(UUID sessionId, int index, long questionId) {
+        QuestionReadDto removed = new QuestionReadDto(questionId, null, null, null, VOID_PROMPT, null, List.of());
+        QuestionPayload.Choice skip = new QuestionPayload.Choice(choiceId(sessionId + "|" + index + "|", 0), VOID_CHOICE);
+        return new Deal(removed, List.of(skip), null);
+    }
+
+    public Deal deal(UUID sessionId, int index, QuestionReadDto dto) {
+        List<String> texts = new ArrayList<>();
+        texts.add(dto.correctAnswer());
+        for (String wa : dto.incorrectAnswers()) {
+            if (wa != null && !wa.isBlank()) texts.add(wa);
+        }
+        String prefix = sessionId + "|" + index + "|";
+        List<QuestionPayload.Choice> choices = new ArrayList<>(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            choices.add(new QuestionPayload.Choice(choiceId(prefix, i), texts.get(i)));
+        }
+        String correctId = choices.get(0).choiceId();
+        long seed = ByteBuffer.wrap(jwtService.hmac("sp-order|" + prefix)).getLong();
+        Collections.shuffle(choices, new Random(seed));
+        return new Deal(dto, List.copyOf(choices), correctId);
+    }
+
+    private String choiceId(String prefix, int i) {
+        byte[] mac = jwtService.hmac("sp-choice|" + prefix + i);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(mac, CHOICE_ID_BYTES));
+    }
+}
@@ -0,0 +1,94 @@
+package org.example.brainbuster.service;
+
+import org.example.brainbuster.dto.game.SessionState;
+import org.example.brainbuster.dto.question.QuestionReadDto;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * One single-player game. It keeps the questions it was dealt as they were then, so editing or deleting
+ * them in the bank doesn't change a game in progress; while a question is unchanged the copy is the
+ * {@link QuestionCatalog}'s own, so that costs a reference. Choices are derived by {@link SpChoices}.
+ * <p>
+ * Everything that changes during a game is one immutable {@link Progress}; a transition replaces it
+ * with a single compare-and-set, so concurrent requests for a session are linearized without locks
+ * and the loser of a race sees exactly what the winner did.
+ */
+public final class SpSession {
+    final UUID id;
+    final String playerUsername;
+    final List<QuestionReadDto> questions;
+    // Offline games get the whole deck up front and are scored in one submission.
+    final boolean offline;
+    final long createdAt;
+    private final AtomicReference<Progress> progress;
+    volatile long lastAccess = System.currentTimeMillis();
+
+    /**
+     * @param version bumped by every transition; lets persistent stores tell newer copies from older ones
+     */
+    public record Progress(SessionState state, int cur, int correctCount, long version) {
+        public static final Progress CREATED = new Progress(SessionState.CREATED, 0, 0, 0);
+
+        public Progress next(SessionState state, int cur, int correctCount) {
+            return new Progress(state, cur, correctCount, version + 1);
+        }
+
+        public boolean over() {
+            return state == SessionState.FINISHED || state == SessionState.CANCELLED || state == SessionState.ABORTED;
+        }
+    }
+
+    public SpSession(String playerUsername, List<QuestionReadDto> questions) {
+        this(UUID.randomUUID(), playerUsername, questions, false, System.currentTimeMillis(), Progress.CREATED);
+    }
+
+    public SpSession(UUID id, String playerUsername, List<QuestionReadDto> questions, boolean offline, long createdAt,
+              Progress progress) {
+        this.id = id;
+        this.playerUsername = playerUsername;
+        this.questions = List.copyOf(questions);
+        this.offline = offline;
+        this.createdAt = createdAt;
+        this.progress = new AtomicReference<>(progress);
+    }
+
+    /**
+     * An offline game: running from the start, since the player has every question once it is created.
+     */
+    static SpSession offline(String playerUsername, List<QuestionReadDto> questions) {
+        return new SpSession(UUID.randomUUID(), playerUsername, questions, true, System.currentTimeMillis(),
+                new Progress(SessionState.RUNNING, 0, 0, 0));
+    }
+
+    public UUID id() { return id; }
+    public String playerUsername() { return playerUsername; }
+    public List<QuestionReadDto> questions() { return questions; }
+    public boolean offline() { return offline; }
+    public long createdAt() { return createdAt; }
+    public long lastAccess() { return lastAccess; }
+    public void touch(long at) { lastAccess = at; }
+    int total() { return questions.size(); }
+    public Progress progress() { return progress.get(); }
+    long version() { return progress.get().version(); }
+
+    /**
+     * @return false if another transition got in first; {@code expected} is then stale
+     */
+    boolean transition(Progress expected, Progress next) {
+        return progress.compareAndSet(expected, next);
+    }
+
+    // Questions are answered strictly in order, so everything before the current one has been answered.
+    int answered(Progress p) { return p.state() == SessionState.FINISHED ? total() : p.cur(); }
+
+    /**
+     * Rough retained size: this object, its UUID, progress and the question list (the username is shared with
+     * the login, the questions with the catalog).
+     */
+    public long estimatedBytes() {
+        return 104 + 32 + 16 + 32 + 4L * questions.size();
+    }
+}
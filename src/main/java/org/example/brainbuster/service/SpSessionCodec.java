@@ -0,0 +1,116 @@
+package org.example.brainbuster.service;
+
+import org.example.brainbuster.dto.game.SessionState;
+import org.example.brainbuster.dto.question.QuestionReadDto;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Binary form of a {@link SpSession} for persistent stores, including the dealt questions, which may no
+ * longer be in the bank (or not in that form) when the session is read back.
+ */
+public final class SpSessionCodec {
+
+    private static final int FORMAT = 1;
+
+    private SpSessionCodec() {
+    }
+
+    public static byte[] encode(SpSession s) {
+        return encode(s, s.progress());
+    }
+
+    public static byte[] encode(SpSession s, SpSession.Progress p) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + 256 * s.questions.size());
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT);
+            out.writeLong(s.id.getMostSignificantBits());
+            out.writeLong(s.id.getLeastSignificantBits());
+            writeNullable(out, s.playerUsername);
+            out.writeByte(p.state().ordinal());
+            out.writeInt(p.cur());
+            out.writeInt(p.correctCount());
+            out.writeLong(s.lastAccess);
+            out.writeLong(p.version());
+            out.writeBoolean(s.offline);
+            out.writeLong(s.createdAt);
+            out.writeInt(s.questions.size());
+            for (QuestionReadDto q : s.questions) writeQuestion(out, q);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static SpSession decode(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            int format = in.readUnsignedByte();
+            if (format != FORMAT) throw new IOException("Unsupported session format " + format);
+            UUID id = new UUID(in.readLong(), in.readLong());
+            String player = readNullable(in);
+            SessionState state = SessionState.values()[in.readUnsignedByte()];
+            int cur = in.readInt();
+            int correctCount = in.readInt();
+            long lastAccess = in.readLong();
+            long version = in.readLong();
+            boolean offline = in.readBoolean();
+            long createdAt = in.readLong();
+            int count = in.readInt();
+            List<QuestionReadDto> questions = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) questions.add(readQuestion(in));
+
+            SpSession s = new SpSession(id, player, questions, offline, createdAt,
+                    new SpSession.Progress(state, cur, correctCount, version));
+            s.touch(lastAccess);
+            return s;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeQuestion(DataOutputStream out, QuestionReadDto q) throws IOException {
+        out.writeLong(q.id());
+        writeText(out, q.type());
+        writeText(out, q.difficulty());
+        writeText(out, q.category());
+        writeText(out, q.question());
+        writeText(out, q.correctAnswer());
+        out.writeInt(q.incorrectAnswers().size());
+        for (String answer : q.incorrectAnswers()) writeText(out, answer);
+    }
+
+    private static QuestionReadDto readQuestion(DataInputStream in) throws IOException {
+        long id = in.readLong();
+        String type = readText(in), difficulty = readText(in), category = readText(in);
+        String question = readText(in), correctAnswer = readText(in);
+        List<String> incorrectAnswers = new ArrayList<>();
+        for (int n = in.readInt(); n > 0; n--) incorrectAnswers.add(readText(in));
+        return new QuestionReadDto(id, type, difficulty, category, question, correctAnswer, incorrectAnswers);
+    }
+
+    // Question texts are TEXT columns and may exceed what writeUTF can hold.
+    private static void writeText(DataOutputStream out, String s) throws IOException {
+        byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readText(DataInputStream in) throws IOException {
+        byte[] utf8 = new byte[in.readInt()];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static void writeNullable(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) out.writeUTF(s);
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
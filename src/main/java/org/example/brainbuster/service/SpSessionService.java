@@ -1,137 +1,353 @@
 package org.example.brainbuster.service;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.brainbuster.config.SpSessionProperties;
 import org.example.brainbuster.dto.game.*;
 import org.example.brainbuster.dto.question.QuestionReadDto;
 import org.example.brainbuster.repository.UserRepository;
+import org.example.brainbuster.service.SpSession.Progress;
 import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class SpSessionService {
 
-    private final QuestionService questionService;
+    private final QuestionCatalog catalog;
     private final UserRepository userRepository;
-    private final Map<UUID, Session> store = new ConcurrentHashMap<>();
+    private final SeenQuestionService seenQuestions;
+    private final SpSessionProperties properties;
+    private final SessionStore store;
+    private final SpChoices choices;
 
-    public SpSessionService(QuestionService questionService, UserRepository userRepository) {
-        this.questionService = questionService;
+    public SpSessionService(QuestionCatalog catalog, UserRepository userRepository, SeenQuestionService seenQuestions,
+                            SpSessionProperties properties, SessionStore store, SpChoices choices, MeterRegistry registry) {
+        this.catalog = catalog;
+        this.choices = choices;
         this.userRepository = userRepository;
+        this.seenQuestions = seenQuestions;
+        this.properties = properties;
+        this.store = store;
+        Gauge.builder("sp.sessions.live", store, st -> st.local().size())
+                .description("Single-player sessions held in memory")
+                .register(registry);
+        Gauge.builder("sp.sessions.memory", store, st -> st.local().stream().mapToLong(SpSession::estimatedBytes).sum())
+                .description("Estimated heap used by single-player sessions")
+                .baseUnit("bytes")
+                .register(registry);
     }
 
     public record Created(UUID id, SessionState state, int totalQuestions) {}
     public record Summary(UUID id, SessionState state, int currentIndex, int totalQuestions, int answered, int correctAnswers) {}
+    public record OfflineCreated(UUID id, SessionState state, int totalQuestions, List<OfflineQuestion> deck) {}
 
-    private static final class Session {
-        final UUID id = UUID.randomUUID();
-        final String playerUsername;
-        SessionState state = SessionState.CREATED;
-        final List<Sq> questions;
-        int cur = 0;
-        int correctCount = 0;
+    // Allowance for the client's clock running faster than ours when checking submitted timings.
+    private static final long CLOCK_SLACK_MS = 2_000;
 
-        Session(String playerUsername, List<Sq> questions) {
-            this.playerUsername = playerUsername;
-            this.questions = questions;
+    public Created create(CreateSpSessionRequest req, String playerUsername) {
+        if (playerUsername != null) enforcePlayerLimit(playerUsername);
+        SpSession s = new SpSession(playerUsername, deal(req, playerUsername));
+        makeRoom();
+        store.put(s);
+        return new Created(s.id, s.progress().state(), s.total());
+    }
+
+    /**
+     * Creates a game whose questions are all handed out now, each choice with a salted commitment to
+     * whether it is correct, to be answered in one {@link #submit}.
+     */
+    public OfflineCreated createOffline(CreateSpSessionRequest req, String playerUsername) {
+        if (playerUsername != null) enforcePlayerLimit(playerUsername);
+        SpSession s = SpSession.offline(playerUsername, deal(req, playerUsername));
+        makeRoom();
+        store.put(s);
+
+        List<OfflineQuestion> deck = new ArrayList<>(s.total());
+        for (int i = 0; i < s.total(); i++) {
+            SpChoices.Deal d = deal(s, i);
+            deck.add(new OfflineQuestion(d.payload(i, s.total()), choices.commitments(s.id, i, d)));
         }
-        int total() { return questions.size(); }
-        boolean finished() { return state == SessionState.FINISHED; }
+        return new OfflineCreated(s.id, s.progress().state(), s.total(), deck);
     }
 
-    private static final class Sq {
-        final long questionId;
-        final String prompt;
-        final List<Choice> choices;
-        final String correctChoiceId;
-        boolean answered = false;
-        Sq(long questionId, String prompt, List<Choice> choices, String correctChoiceId) {
-            this.questionId = questionId; this.prompt = prompt; this.choices = choices; this.correctChoiceId = correctChoiceId;
+    /**
+     * Scores every answer of an offline game at once and reveals the salts behind the commitments.
+     * Each answer must have taken at least {@code sp.sessions.offline-min-answer-time}, and together
+     * no longer than the time since the deck was dealt.
+     */
+    public SubmitResponse submit(UUID id, String playerUsername, List<SubmitRequest.Answer> answers) {
+        SpSession s = get(id);
+        if (!Objects.equals(s.playerUsername, playerUsername)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Not your session");
         }
+        if (!s.offline) throw new ResponseStatusException(HttpStatus.CONFLICT, "Not an offline session");
+        Progress p = s.progress();
+        if (p.state() != SessionState.RUNNING) throw new ResponseStatusException(HttpStatus.CONFLICT, "Session not running");
 
-        record Choice(String id, String text) {
+        int total = s.total();
+        if (answers.size() != total) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Expected " + total + " answers, got " + answers.size());
+        }
+        String[] chosen = new String[total];
+        long minMs = properties.getOfflineMinAnswerTime().toMillis();
+        long claimedMs = 0;
+        for (SubmitRequest.Answer a : answers) {
+            if (a.index() < 0 || a.index() >= total || chosen[a.index()] != null) {
+                throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Answer index missing, repeated or out of range: " + a.index());
+            }
+            if (a.elapsedMs() < minMs) {
+                throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Implausible answer time for question " + a.index());
+            }
+            chosen[a.index()] = a.choiceId();
+            claimedMs += a.elapsedMs();
         }
+        if (claimedMs > System.currentTimeMillis() - s.createdAt + CLOCK_SLACK_MS) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Answer times exceed the time since the deck was dealt");
+        }
+
+        List<SubmitResponse.Result> results = new ArrayList<>(total);
+        int score = 0;
+        for (int i = 0; i < total; i++) {
+            SpChoices.Deal d = deal(s, i);
+            boolean correct = d.isCorrect(chosen[i]);
+            if (correct) score++;
+            results.add(new SubmitResponse.Result(i, chosen[i], correct, d.correctChoiceId(), choices.salts(s.id, i, d)));
+        }
+        if (!store.transition(s, p, p.next(SessionState.FINISHED, total - 1, score))) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Already submitted");
+        }
+        maybeUpdateHighScore(s.playerUsername, score);
+        return new SubmitResponse(s.id, SessionState.FINISHED, score, total, results);
     }
 
-    public Created create(CreateSpSessionRequest req, String playerUsername) {
-        var page = questionService.search(
-                nullIfBlank(req.category()),
-                nullIfBlank(req.difficulty()),
-                null, null, 0, 1000, null
-        );
-
-        List<QuestionReadDto> pool = new ArrayList<>(page.getContent());
-        if (pool.size() < req.numQuestions()) {
+    /**
+     * Picks the questions for a new game and records them as dealt to the player.
+     */
+    List<QuestionReadDto> deal(CreateSpSessionRequest req, String playerUsername) {
+        if (!catalog.isLoaded()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Question catalog is not loaded yet");
+        }
+        String category = nullIfBlank(req.category());
+        String difficulty = nullIfBlank(req.difficulty());
+
+        int available = catalog.count(category, difficulty, null);
+        if (available < req.numQuestions()) {
             throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
-                    "Not enough questions: requested=" + req.numQuestions() + ", available=" + pool.size());
+                    "Not enough questions: requested=" + req.numQuestions() + ", available=" + available);
         }
-        if (pool.size() > 1) Collections.shuffle(pool);
-        List<QuestionReadDto> picked = pool.subList(0, req.numQuestions());
+        List<QuestionReadDto> picked = pickUnseen(playerUsername, category, difficulty, req.numQuestions());
 
-        List<Sq> sqs = picked.stream().map(this::toSessionQuestion).toList();
-        Session s = new Session(playerUsername, sqs);
-        store.put(s.id, s);
-        return new Created(s.id, s.state, s.total());
+        List<Long> pickedIds = picked.stream().map(QuestionReadDto::id).toList();
+        catalog.recordExposure(pickedIds);
+        if (playerUsername != null) seenQuestions.markSeen(playerUsername, pickedIds);
+        return picked;
     }
 
-    public QuestionPayload start(UUID id) {
-        Session s = get(id);
-        if (s.finished()) throw new ResponseStatusException(HttpStatus.CONFLICT, "Session finished");
-        if (s.state == SessionState.RUNNING) return asPayload(s, s.cur);
-        if (s.total() == 0) throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "No questions");
-        s.state = SessionState.RUNNING;
-        s.cur = 0;
-        return asPayload(s, s.cur);
+    /**
+     * The player's unfinished sessions, most recently used first, so a reloaded page can resume instead of starting over.
+     */
+    public List<Summary> active(String playerUsername) {
+        return activeSessions(playerUsername).stream()
+                .sorted(Comparator.comparingLong((SpSession s) -> s.lastAccess).reversed())
+                .map(s -> toSummary(s, s.progress()))
+                .toList();
     }
 
-    public QuestionPayload current(UUID id) {
-        Session s = get(id);
-        if (s.state != SessionState.RUNNING) throw new ResponseStatusException(HttpStatus.CONFLICT, "Session not running");
-        if (s.cur >= s.total()) throw new ResponseStatusException(HttpStatus.CONFLICT, "Session finished");
-        return asPayload(s, s.cur);
+    private List<SpSession> activeSessions(String playerUsername) {
+        return store.findByPlayer(playerUsername).stream().filter(s -> !s.progress().over()).toList();
+    }
+
+    /**
+     * Makes room for one more session under {@code sp.sessions.max-active-per-player}. Two creates racing
+     * for the last slot may both get it; the limit is there to stop abandoned and scripted sessions piling up.
+     */
+    private void enforcePlayerLimit(String playerUsername) {
+        int max = properties.getMaxActivePerPlayer();
+        if (max <= 0) return;
+        List<SpSession> active = activeSessions(playerUsername);
+        int excess = active.size() - max + 1;
+        if (excess <= 0) return;
+        if (properties.getPlayerLimitPolicy() == SpSessionProperties.PlayerLimitPolicy.REJECT) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                    "Too many active sessions (max " + max + "); finish or cancel one first");
+        }
+        active.stream()
+                .sorted(Comparator.comparingLong((SpSession s) -> s.lastAccess))
+                .limit(excess)
+                .forEach(s -> {
+                    try {
+                        end(s, SessionState.CANCELLED);
+                    } catch (ResponseStatusException alreadyEnded) {
+                        // finished or cancelled in the meantime; its slot is free either way
+                    }
+                });
     }
 
-    public AnswerResponse answer(UUID id, String choiceId) {
-        Session s = get(id);
-        if (s.state != SessionState.RUNNING) throw new ResponseStatusException(HttpStatus.CONFLICT, "Session not running");
-        if (s.cur >= s.total()) throw new ResponseStatusException(HttpStatus.CONFLICT, "No more questions");
+    /**
+     * Ends a session on behalf of its player and frees it right away.
+     */
+    public Summary cancel(UUID id, String playerUsername) {
+        SpSession s = get(id);
+        if (!Objects.equals(s.playerUsername, playerUsername)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Not your session");
+        }
+        return end(s, SessionState.CANCELLED);
+    }
 
-        Sq q = s.questions.get(s.cur);
-        if (q.answered) throw new ResponseStatusException(HttpStatus.CONFLICT, "Already answered");
+    /**
+     * Ends any session (administrative action) and frees it right away.
+     */
+    public Summary abort(UUID id) {
+        return end(get(id), SessionState.ABORTED);
+    }
 
-        boolean correct = Objects.equals(q.correctChoiceId, choiceId);
-        q.answered = true;
-        if (correct) s.correctCount++;
+    private Summary end(SpSession s, SessionState state) {
+        Progress p;
+        Progress ended;
+        do {
+            p = s.progress();
+            if (p.over()) throw new ResponseStatusException(HttpStatus.CONFLICT, "Session already " + p.state().name().toLowerCase(Locale.ROOT));
+            ended = p.next(state, p.cur(), p.correctCount());
+        } while (!store.transition(s, p, ended));
+        store.remove(s);
+        return toSummary(s, ended);
+    }
 
-        int idx = s.cur;
+    /**
+     * Drops idle sessions after {@code sp.sessions.idle-ttl} and finished ones after {@code sp.sessions.finished-ttl}.
+     * This node frees its copies by their local last access; stored sessions are purged by the store's own record of it.
+     */
+    @Scheduled(fixedDelayString = "${sp.sessions.sweep-interval:PT1M}")
+    public void expireSessions() {
+        long now = System.currentTimeMillis();
+        long idle = properties.getIdleTtl().toMillis();
+        long finished = properties.getFinishedTtl().toMillis();
+        for (SpSession s : store.local()) {
+            long ttl = s.progress().over() ? finished : idle;
+            if (now - s.lastAccess > ttl) store.evict(s);
+        }
+        store.purge(now - idle, now - finished);
+    }
+
+    /**
+     * Keeps the store under {@code sp.sessions.max-sessions}: expired sessions go first, then the least
+     * recently used 1% so that a full store isn't rescanned on every create.
+     */
+    private void makeRoom() {
+        int max = properties.getMaxSessions();
+        if (store.local().size() < max) return;
+        expireSessions();
+        if (store.local().size() < max) return;
+
+        int batch = Math.max(1, max / 100);
+        PriorityQueue<SpSession> newestOfOldest = new PriorityQueue<>(batch + 1,
+                Comparator.comparingLong((SpSession s) -> s.lastAccess).reversed());
+        for (SpSession s : store.local()) {
+            newestOfOldest.add(s);
+            if (newestOfOldest.size() > batch) newestOfOldest.poll();
+        }
+        newestOfOldest.forEach(store::evict);
+    }
+
+    /**
+     * Draws questions the player hasn't been dealt yet. Once too few unseen ones are left in the
+     * requested category/difficulty, all of those are taken, the player's history for it starts over
+     * and only the shortfall is drawn from the rest.
+     */
+    private List<QuestionReadDto> pickUnseen(String playerUsername, String category, String difficulty, int count) {
+        if (playerUsername == null) return catalog.sampleWeighted(category, difficulty, null, count);
+        List<QuestionReadDto> picked = catalog.sampleWeighted(category, difficulty, null, count,
+                seenQuestions.seenBy(playerUsername));
+        if (picked.size() < count) {
+            seenQuestions.forget(playerUsername, catalog.ids(category, difficulty, null));
+            Set<Long> taken = new HashSet<>();
+            for (QuestionReadDto q : picked) taken.add(q.id());
+            List<QuestionReadDto> all = new ArrayList<>(picked);
+            all.addAll(catalog.sampleWeighted(category, difficulty, null, count - picked.size(), taken::contains));
+            Collections.shuffle(all);
+            picked = all;
+        }
+        return picked;
+    }
+
+    public QuestionPayload start(UUID id) {
+        SpSession s = stepwise(get(id));
+        while (true) {
+            Progress p = s.progress();
+            if (p.over()) throw new ResponseStatusException(HttpStatus.CONFLICT, "Session finished");
+            if (p.state() == SessionState.RUNNING) return asPayload(s, p.cur());
+            if (s.total() == 0) throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "No questions");
+            if (store.transition(s, p, p.next(SessionState.RUNNING, 0, 0))) {
+                return asPayload(s, 0);
+            }
+        }
+    }
+
+    public QuestionPayload current(UUID id) {
+        SpSession s = stepwise(get(id));
+        Progress p = s.progress();
+        if (p.state() != SessionState.RUNNING) throw new ResponseStatusException(HttpStatus.CONFLICT, "Session not running");
+        return asPayload(s, p.cur());
+    }
+
+    /**
+     * Answers the current question. With {@code expectedIndex} set, the answer only counts if that is
+     * still the current question, so a stale tab cannot answer the next one by accident.
+     */
+    public AnswerResponse answer(UUID id, String choiceId, Integer expectedIndex) {
+        SpSession s = stepwise(get(id));
+        Progress p = s.progress();
+        if (p.state() != SessionState.RUNNING) throw new ResponseStatusException(HttpStatus.CONFLICT, "Session not running");
+        int idx = p.cur();
+        if (expectedIndex != null && expectedIndex != idx) throw new ResponseStatusException(HttpStatus.CONFLICT, "Already answered");
+
+        boolean correct = deal(s, idx).isCorrect(choiceId);
+        int score = p.correctCount() + (correct ? 1 : 0);
         int nextIdx = idx + 1;
-        if (nextIdx >= s.total()) {
-            s.state = SessionState.FINISHED;
+        boolean last = nextIdx >= s.total();
+        Progress next = last ? p.next(SessionState.FINISHED, idx, score) : p.next(SessionState.RUNNING, nextIdx, score);
 
-            maybeUpdateHighScore(s.playerUsername, s.correctCount);
+        // Every transition replaces the progress, so losing the race means this question was answered
+        // (or the game ended) in the meantime: the answer is rejected rather than applied to the next question.
+        if (!store.transition(s, p, next)) {
+            SessionState now = s.progress().state();
+            boolean ended = now != SessionState.RUNNING && now != SessionState.FINISHED;
+            throw new ResponseStatusException(HttpStatus.CONFLICT, ended ? "Session not running" : "Already answered");
+        }
 
-            return new AnswerResponse(correct, idx, null, s.state, null);
-        } else {
-            s.cur = nextIdx;
-            return new AnswerResponse(correct, idx, nextIdx, s.state, asPayload(s, nextIdx));
+        if (last) {
+            maybeUpdateHighScore(s.playerUsername, score);
+            return new AnswerResponse(correct, idx, null, SessionState.FINISHED, null);
         }
+        return new AnswerResponse(correct, idx, nextIdx, SessionState.RUNNING, asPayload(s, nextIdx));
     }
 
     public Summary summary(UUID id) {
-        Session s = get(id);
-        int answered = (int) s.questions.stream().filter(q -> q.answered).count();
-        return new Summary(s.id, s.state, s.cur, s.total(), answered, s.correctCount);
+        SpSession s = get(id);
+        return toSummary(s, s.progress());
     }
 
-    private Session get(UUID id) {
-        Session s = store.get(id);
-        if (s == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Session not found");
+    private Summary toSummary(SpSession s, Progress p) {
+        return new Summary(s.id, p.state(), p.cur(), s.total(), s.answered(p), p.correctCount());
+    }
+
+    private SpSession stepwise(SpSession s) {
+        if (s.offline) throw new ResponseStatusException(HttpStatus.CONFLICT, "Offline session; submit all answers at once");
+        return s;
+    }
+
+    private SpSession get(UUID id) {
+        SpSession s = store.find(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Session not found"));
+        s.touch(System.currentTimeMillis());
         return s;
     }
 
-    private void maybeUpdateHighScore(String username, int newScore) {
+    void maybeUpdateHighScore(String username, int newScore) {
         if (username == null || username.isBlank()) return;
         userRepository.findByUsername(username).ifPresent(user -> {
             int current = Optional.ofNullable(user.getHighScore()).orElse(0);
@@ -142,22 +358,12 @@ public class SpSessionService {
         });
     }
 
-    private Sq toSessionQuestion(QuestionReadDto dto) {
-        List<Sq.Choice> choices = new ArrayList<>();
-        String correctId = UUID.randomUUID().toString();
-        choices.add(new Sq.Choice(correctId, dto.correctAnswer()));
-        for (String wa : dto.incorrectAnswers()) {
-            if (wa == null || wa.isBlank()) continue;
-            choices.add(new Sq.Choice(UUID.randomUUID().toString(), wa));
-        }
-        Collections.shuffle(choices);
-        return new Sq(dto.id(), dto.question(), choices, correctId);
+    private SpChoices.Deal deal(SpSession s, int index) {
+        return choices.deal(s.id, index, s.questions.get(index));
     }
 
-    private QuestionPayload asPayload(Session s, int index) {
-        Sq q = s.questions.get(index);
-        var out = q.choices.stream().map(c -> new QuestionPayload.Choice(c.id, c.text)).toList();
-        return new QuestionPayload(q.questionId, q.prompt, out, index, s.total());
+    private QuestionPayload asPayload(SpSession s, int index) {
+        return deal(s, index).payload(index, s.total());
     }
 
     private String nullIfBlank(String s) { return (s == null || s.isBlank()) ? null : s; }
@@ -0,0 +1,99 @@
+package org.example.brainbuster.service;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Single-player sessions on local disk, to carry them across a restart of the node.
+ * <p>
+ * Layout: magic, format version, write time, session count, then each session as a length-prefixed
+ * {@link SpSessionCodec} record, then a CRC32 of everything before it.
+ */
+final class SpSessionSnapshot {
+
+    private static final int MAGIC = 0x42425353; // "BBSS"
+    private static final int FORMAT = 1;
+
+    record Contents(long writtenAt, List<SpSession> sessions) {}
+
+    private SpSessionSnapshot() {
+    }
+
+    /**
+     * Writes sessions in the given order until {@code maxBytes} would be exceeded, to a sibling temp
+     * file that is then moved into place.
+     *
+     * @return how many sessions were written
+     */
+    static int write(Path path, Collection<SpSession> sessions, long maxBytes) throws IOException {
+        List<byte[]> records = new ArrayList<>(sessions.size());
+        long bytes = 28;
+        for (SpSession s : sessions) {
+            byte[] record = SpSessionCodec.encode(s);
+            if (bytes + 4 + record.length > maxBytes) break;
+            bytes += 4 + record.length;
+            records.add(record);
+        }
+
+        Path dir = path.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, path.getFileName().toString(), ".tmp");
+        try {
+            CRC32 crc = new CRC32();
+            try (var out = new DataOutputStream(new BufferedOutputStream(
+                    new CheckedOutputStream(Files.newOutputStream(tmp), crc), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT);
+                out.writeLong(System.currentTimeMillis());
+                out.writeInt(records.size());
+                for (byte[] record : records) {
+                    out.writeInt(record.length);
+                    out.write(record);
+                }
+                out.flush();
+                out.writeLong(crc.getValue());
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return records.size();
+    }
+
+    /**
+     * @throws IOException if the file is missing, truncated, corrupt or of another format
+     */
+    static Contents read(Path path) throws IOException {
+        byte[] data = Files.readAllBytes(path);
+        if (data.length < 28) throw new EOFException("Truncated session snapshot");
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length - 8);
+        ByteBuffer in = ByteBuffer.wrap(data);
+        if (in.getLong(data.length - 8) != crc.getValue()) throw new IOException("Session snapshot checksum mismatch");
+        if (in.getInt() != MAGIC) throw new IOException("Not a session snapshot");
+        int format = in.getInt();
+        if (format != FORMAT) throw new IOException("Unsupported session snapshot format " + format);
+
+        long writtenAt = in.getLong();
+        int count = in.getInt();
+        List<SpSession> sessions = new ArrayList<>(count);
+        try {
+            for (int i = 0; i < count; i++) {
+                byte[] record = new byte[in.getInt()];
+                in.get(record);
+                sessions.add(SpSessionCodec.decode(record));
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt session snapshot", e);
+        }
+        return new Contents(writtenAt, sessions);
+    }
+}
@@ -0,0 +1,106 @@
+package org.example.brainbuster.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.brainbuster.config.SpSessionProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Carries live single-player sessions across a restart through {@code sp.sessions.snapshot-path}.
+ * <p>
+ * Runs in an earlier lifecycle phase than the web server: sessions are restored before the port opens
+ * (and so before the node reports ready) and written only after the server has stopped taking
+ * requests and, with {@code server.shutdown=graceful}, finished the ones in flight.
+ */
+@Slf4j
+@Component
+public class SpSessionSnapshotLifecycle implements SmartLifecycle {
+
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private final SessionStore store;
+    private final SpSessionProperties properties;
+    private volatile boolean running;
+
+    public SpSessionSnapshotLifecycle(SessionStore store, SpSessionProperties properties) {
+        this.store = store;
+        this.properties = properties;
+    }
+
+    @Override
+    public void start() {
+        Path snapshot = snapshotPath();
+        if (snapshot != null) restore(snapshot);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Path snapshot = snapshotPath();
+        if (snapshot == null) return;
+        // Most recently used first, so those are the ones kept if the size limit cuts the list short.
+        List<SpSession> sessions = store.local().stream()
+                .sorted(Comparator.comparingLong((SpSession s) -> s.lastAccess).reversed())
+                .toList();
+        try {
+            int written = SpSessionSnapshot.write(snapshot, sessions, properties.getSnapshotMaxSize().toBytes());
+            log.info("Wrote {} of {} single-player sessions to {}", written, sessions.size(), snapshot);
+        } catch (IOException e) {
+            log.warn("Could not write session snapshot {}", snapshot, e);
+        }
+    }
+
+    private void restore(Path snapshot) {
+        try {
+            SpSessionSnapshot.Contents contents = SpSessionSnapshot.read(snapshot);
+            long now = System.currentTimeMillis();
+            if (now - contents.writtenAt() > properties.getSnapshotMaxAge().toMillis()) {
+                log.info("Ignoring session snapshot {} written {} s ago", snapshot, (now - contents.writtenAt()) / 1000);
+            } else {
+                long idle = properties.getIdleTtl().toMillis();
+                long finished = properties.getFinishedTtl().toMillis();
+                int restored = 0;
+                for (SpSession s : contents.sessions()) {
+                    long ttl = s.progress().over() ? finished : idle;
+                    if (now - s.lastAccess > ttl) continue;
+                    store.put(s);
+                    restored++;
+                }
+                log.info("Restored {} single-player sessions from {}", restored, snapshot);
+            }
+        } catch (NoSuchFileException e) {
+            return;
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable session snapshot {}", snapshot, e);
+        }
+        // Restored once only: after a crash, an older snapshot would bring back outdated sessions.
+        try {
+            Files.deleteIfExists(snapshot);
+        } catch (IOException e) {
+            log.warn("Could not delete session snapshot {}", snapshot, e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private Path snapshotPath() {
+        String path = properties.getSnapshotPath();
+        return (path == null || path.isBlank()) ? null : Path.of(path);
+    }
+}
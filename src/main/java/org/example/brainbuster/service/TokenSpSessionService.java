@@ -0,0 +1,178 @@
+package org.example.brainbuster.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.example.brainbuster.config.SpSessionProperties;
+import org.example.brainbuster.dto.game.*;
+import org.example.brainbuster.dto.question.QuestionReadDto;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayOutputStream;
+import java.util.*;
+
+/**
+ * Single-player games in {@link SessionMode#TOKEN} mode: the dealt question ids, current index and
+ * score travel in a signed token that every step replaces, so any node can serve any step and nothing
+ * is kept per game.
+ * <p>
+ * Choices come from {@link SpChoices}, so the token itself reveals nothing about the answers. Each answer consumes the token it was sent with,
+ * remembered for as long as the token is valid; that guard is per node, so a replay against another node is only stopped by the token's expiry.
+ * The token only carries question ids, so questions are read from the catalog on each step; one removed since the game started is void.
+ */
+@Service
+public class TokenSpSessionService {
+
+    private final SpSessionService sessions;
+    private final SpChoices choices;
+    private final JwtService jwtService;
+    private final SpSessionProperties properties;
+
+    // Answered (session, index) pairs. A token is valid for idle-ttl from when it was issued, which is
+    // before it can be answered, so keeping each pair that long outlives every token for it.
+    private final Cache<String, Boolean> answered;
+
+    public TokenSpSessionService(SpSessionService sessions, SpChoices choices, JwtService jwtService,
+                                 SpSessionProperties properties) {
+        this.sessions = sessions;
+        this.choices = choices;
+        this.jwtService = jwtService;
+        this.properties = properties;
+        this.answered = Caffeine.newBuilder().expireAfterWrite(properties.getIdleTtl()).build();
+    }
+
+    public record Issued(UUID id, SessionState state, int totalQuestions, String token) {}
+
+    private record Game(UUID id, String player, long[] questionIds, int index, int correct, SessionState state) {
+        int total() { return questionIds.length; }
+        Game with(int index, int correct, SessionState state) {
+            return new Game(id, player, questionIds, index, correct, state);
+        }
+    }
+
+    public Issued create(CreateSpSessionRequest req, String playerUsername) {
+        long[] ids = sessions.deal(req, playerUsername).stream().mapToLong(QuestionReadDto::id).toArray();
+        Game g = new Game(UUID.randomUUID(), playerUsername, ids, 0, 0, SessionState.CREATED);
+        return new Issued(g.id(), g.state(), g.total(), issue(g));
+    }
+
+    public StartSpResponse start(UUID id, String token, String playerUsername) {
+        Game g = read(id, token, playerUsername);
+        if (g.state() == SessionState.FINISHED) throw new ResponseStatusException(HttpStatus.CONFLICT, "Session finished");
+        if (g.state() == SessionState.RUNNING) return new StartSpResponse(g.state(), payload(g), token);
+        Game running = g.with(0, 0, SessionState.RUNNING);
+        return new StartSpResponse(running.state(), payload(running), issue(running));
+    }
+
+    public QuestionPayload current(UUID id, String token, String playerUsername) {
+        Game g = read(id, token, playerUsername);
+        if (g.state() != SessionState.RUNNING) throw new ResponseStatusException(HttpStatus.CONFLICT, "Session not running");
+        return payload(g);
+    }
+
+    public AnswerResponse answer(UUID id, String token, String playerUsername, String choiceId) {
+        Game g = read(id, token, playerUsername);
+        if (g.state() != SessionState.RUNNING) throw new ResponseStatusException(HttpStatus.CONFLICT, "Session not running");
+        if (!consume(g)) throw new ResponseStatusException(HttpStatus.CONFLICT, "Already answered");
+
+        boolean correct = deal(g).isCorrect(choiceId);
+        int score = g.correct() + (correct ? 1 : 0);
+        int idx = g.index();
+        int nextIdx = idx + 1;
+        if (nextIdx < g.total()) {
+            Game next = g.with(nextIdx, score, SessionState.RUNNING);
+            return new AnswerResponse(correct, idx, nextIdx, next.state(), payload(next), issue(next));
+        }
+        Game finished = g.with(idx, score, SessionState.FINISHED);
+        sessions.maybeUpdateHighScore(playerUsername, score);
+        return new AnswerResponse(correct, idx, null, finished.state(), null, issue(finished));
+    }
+
+    public SpSessionService.Summary summary(UUID id, String token, String playerUsername) {
+        Game g = read(id, token, playerUsername);
+        int answeredCount = switch (g.state()) {
+            case FINISHED -> g.total();
+            case RUNNING -> g.index();
+            default -> 0;
+        };
+        return new SpSessionService.Summary(g.id(), g.state(), g.index(), g.total(), answeredCount, g.correct());
+    }
+
+    private boolean consume(Game g) {
+        return answered.asMap().putIfAbsent(g.id() + ":" + g.index(), Boolean.TRUE) == null;
+    }
+
+    private String issue(Game g) {
+        Map<String, Object> state = Map.of(
+                "q", encodeIds(g.questionIds()),
+                "i", g.index(),
+                "c", g.correct(),
+                "s", g.state().name());
+        return jwtService.generateSpSessionToken(g.player(), g.id().toString(), state, properties.getIdleTtl());
+    }
+
+    private Game read(UUID id, String token, String playerUsername) {
+        Claims c;
+        try {
+            c = jwtService.extractSpSessionClaims(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid or expired session token");
+        }
+        if (!id.toString().equals(c.getId())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Token belongs to another session");
+        }
+        if (!Objects.equals(playerUsername, c.getSubject())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Not your session");
+        }
+        return new Game(id, c.getSubject(), decodeIds(c.get("q", String.class)),
+                c.get("i", Integer.class), c.get("c", Integer.class), SessionState.valueOf(c.get("s", String.class)));
+    }
+
+    private QuestionPayload payload(Game g) {
+        return deal(g).payload(g.index(), g.total());
+    }
+
+    private SpChoices.Deal deal(Game g) {
+        return choices.deal(g.id(), g.index(), g.questionIds()[g.index()]);
+    }
+
+    // Question ids as zigzag varint deltas, base64url: a 10-question deck fits in ~30 characters.
+    public static String encodeIds(long[] ids) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(ids.length * 3);
+        long prev = 0;
+        for (long id : ids) {
+            long delta = id - prev;
+            long v = (delta << 1) ^ (delta >> 63);
+            while ((v & ~0x7FL) != 0) {
+                out.write((int) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            out.write((int) v);
+            prev = id;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(out.toByteArray());
+    }
+
+    public static long[] decodeIds(String encoded) {
+        byte[] bytes = Base64.getUrlDecoder().decode(encoded);
+        long[] ids = new long[bytes.length];
+        int n = 0;
+        long prev = 0;
+        for (int pos = 0; pos < bytes.length; ) {
+            long v = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[pos++];
+                v |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            prev += (v >>> 1) ^ -(v & 1);
+            ids[n++] = prev;
+        }
+        return Arrays.copyOf(ids, n);
+    }
+}
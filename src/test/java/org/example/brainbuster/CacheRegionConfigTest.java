@@ -0,0 +1,49 @@
+package org.example.brainbuster;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.configuration.TypesafeConfigurator;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheRegionConfigTest {
+
+    private static final List<String> REGIONS = List.of("questions", "question-incorrect-answers",
+            "incorrect-answers", "default-query-results-region", "default-update-timestamps-region");
+
+    private final Config config = ConfigFactory.load();
+
+    private CaffeineConfiguration<Object, Object> region(String name) {
+        return TypesafeConfigurator.<Object, Object>from(config, name)
+                .orElseThrow(() -> new AssertionError("No cache region " + name));
+    }
+
+    @Test
+    void regions_shouldAllBeConfigured() {
+        Set<String> names = TypesafeConfigurator.cacheNames(config);
+
+        assertTrue(names.containsAll(REGIONS), () -> "Configured regions: " + names);
+    }
+
+    @Test
+    void everyRegion_shouldBeBoundedAndExpireAfterWrite() {
+        for (String name : REGIONS) {
+            CaffeineConfiguration<Object, Object> region = region(name);
+            assertTrue(region.getMaximumSize().isPresent(), name + " has no maximum size");
+            assertTrue(region.getExpireAfterWrite().isPresent(), name + " never expires");
+        }
+    }
+
+    @Test
+    void updateTimestamps_shouldOutliveCachedQueryResults() {
+        long results = region("default-query-results-region").getExpireAfterWrite().getAsLong();
+        long timestamps = region("default-update-timestamps-region").getExpireAfterWrite().getAsLong();
+
+        assertTrue(timestamps >= results);
+    }
+}
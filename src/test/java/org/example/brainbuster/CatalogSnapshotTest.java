@@ -0,0 +1,47 @@
+package org.example.brainbuster;
+
+import org.example.brainbuster.dto.question.QuestionReadDto;
+import org.example.brainbuster.service.CatalogSnapshot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void writeThenRead_shouldRoundTripQuestions() throws IOException {
+        List<QuestionReadDto> questions = List.of(
+                new QuestionReadDto(1L, "multiple", "easy", "Science", "What is water?", "H2O", List.of("CO2", "O2")),
+                new QuestionReadDto(7L, "boolean", "hard", "Geschichte", "Wurde Rom 753 v. Chr. gegr\u00fcndet?", "True", List.of("False")),
+                new QuestionReadDto(9L, "multiple", "easy", "Science", "Which gas do plants absorb?", "CO2", List.of())
+        );
+        Path file = dir.resolve("catalog.bin");
+
+        CatalogSnapshot.write(file, questions);
+        List<QuestionReadDto> read = CatalogSnapshot.read(file);
+
+        assertEquals(questions, read);
+        assertSame(read.get(0).category(), read.get(2).category());
+    }
+
+    @Test
+    void read_corruptFile_shouldThrow() throws IOException {
+        Path file = dir.resolve("catalog.bin");
+        CatalogSnapshot.write(file, List.of(
+                new QuestionReadDto(1L, "multiple", "easy", "Science", "What is water?", "H2O", List.of("CO2"))));
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 0x5A;
+        Files.write(file, bytes);
+
+        assertThrows(IOException.class, () -> CatalogSnapshot.read(file));
+    }
+}
@@ -0,0 +1,280 @@
+package org.example.brainbuster;
+
+import org.example.brainbuster.dto.game.SessionState;
+import org.example.brainbuster.dto.question.QuestionReadDto;
+import org.example.brainbuster.service.JdbcSessionStore;
+import org.example.brainbuster.service.SpSession;
+import org.example.brainbuster.service.SpSession.Progress;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two stores over one table stand in for two nodes.
+ */
+class JdbcSessionStoreTest {
+
+    private FakeSessionTable table;
+    private JdbcSessionStore nodeA;
+    private JdbcSessionStore nodeB;
+
+    @BeforeEach
+    void setUp() {
+        table = new FakeSessionTable();
+        nodeA = new JdbcSessionStore(table);
+        nodeB = new JdbcSessionStore(table);
+    }
+
+    private static SpSession session(String player) {
+        return new SpSession(player, List.of(question(1), question(2), question(3)));
+    }
+
+    private static QuestionReadDto question(long id) {
+        return new QuestionReadDto(id, "multiple", "easy", "Science", "Q" + id, "A", List.of("B", "C"));
+    }
+
+    @Test
+    void put_shouldBeVisibleToOtherNodeRightAway() {
+        SpSession s = session("alice");
+        nodeA.put(s);
+
+        SpSession loaded = nodeB.find(s.id()).orElseThrow();
+
+        assertNotSame(s, loaded);
+        assertEquals(s.questions(), loaded.questions());
+        assertEquals(s.progress(), loaded.progress());
+        assertEquals(List.of(loaded), nodeB.findByPlayer("alice"));
+    }
+
+    @Test
+    void transition_shouldWriteRowBeforeReturning() {
+        SpSession s = session("alice");
+        nodeA.put(s);
+        Progress p = s.progress();
+
+        assertTrue(nodeA.transition(s, p, p.next(SessionState.RUNNING, 0, 0)));
+
+        assertEquals(1, table.rows.get(s.id().toString()).version);
+        assertEquals("RUNNING", table.rows.get(s.id().toString()).state);
+        assertEquals(SessionState.RUNNING, nodeB.find(s.id()).orElseThrow().progress().state());
+    }
+
+    @Test
+    void transition_fromStaleExpected_shouldReturnFalseWithoutWriting() {
+        SpSession s = session("alice");
+        nodeA.put(s);
+        Progress p = s.progress();
+        nodeA.transition(s, p, p.next(SessionState.RUNNING, 0, 0));
+
+        assertFalse(nodeA.transition(s, p, p.next(SessionState.CANCELLED, 0, 0)));
+        assertEquals(1, table.rows.get(s.id().toString()).version);
+    }
+
+    @Test
+    void transition_onCopyMovedOnByOtherNode_shouldThrow409AndReload() {
+        SpSession onA = session("alice");
+        nodeA.put(onA);
+        SpSession onB = nodeB.find(onA.id()).orElseThrow();
+        Progress p = onA.progress();
+        nodeA.transition(onA, p, p.next(SessionState.RUNNING, 0, 0));
+
+        Progress stale = onB.progress();
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> nodeB.transition(onB, stale, stale.next(SessionState.RUNNING, 0, 0)));
+
+        assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+        assertEquals(1, table.rows.get(onA.id().toString()).version);
+        SpSession reloaded = nodeB.find(onA.id()).orElseThrow();
+        assertNotSame(onB, reloaded);
+        assertEquals(onA.progress(), reloaded.progress());
+    }
+
+    @Test
+    void find_afterOtherNodeMovedSessionOn_shouldReload() {
+        SpSession onA = session("alice");
+        nodeA.put(onA);
+        SpSession onB = nodeB.find(onA.id()).orElseThrow();
+        Progress p = onA.progress();
+        nodeA.transition(onA, p, p.next(SessionState.RUNNING, 0, 0));
+
+        SpSession found = nodeB.find(onA.id()).orElseThrow();
+
+        assertNotSame(onB, found);
+        assertEquals(SessionState.RUNNING, found.progress().state());
+    }
+
+    @Test
+    void evict_shouldKeepRowForOtherNodes() {
+        SpSession s = session("alice");
+        nodeA.put(s);
+        nodeB.find(s.id()).orElseThrow();
+
+        assertTrue(nodeA.evict(s));
+
+        assertTrue(nodeA.local().isEmpty());
+        assertTrue(table.rows.containsKey(s.id().toString()));
+        assertTrue(nodeB.find(s.id()).isPresent());
+        assertTrue(nodeA.find(s.id()).isPresent());
+    }
+
+    @Test
+    void remove_shouldDeleteRowForEveryNode() {
+        SpSession s = session("alice");
+        nodeA.put(s);
+        nodeB.find(s.id()).orElseThrow();
+
+        assertTrue(nodeA.remove(s));
+
+        assertFalse(table.rows.containsKey(s.id().toString()));
+        assertTrue(nodeB.find(s.id()).isEmpty());
+        assertTrue(nodeB.local().isEmpty());
+    }
+
+    @Test
+    void writeLastAccess_shouldWriteLastAccessOfSessionsReadSinceLastRun() {
+        SpSession s = session("alice");
+        nodeA.put(s);
+        long created = table.rows.get(s.id().toString()).lastAccess;
+        nodeA.find(s.id()).orElseThrow().touch(created + 60_000);
+
+        nodeA.writeLastAccess();
+
+        assertEquals(created + 60_000, table.rows.get(s.id().toString()).lastAccess);
+        nodeA.purge(created + 1, created + 1);
+        assertTrue(table.rows.containsKey(s.id().toString()));
+        nodeA.purge(created + 60_001, created + 60_001);
+        assertFalse(table.rows.containsKey(s.id().toString()));
+    }
+
+    /**
+     * Just enough of {@code sp_sessions} to run the statements {@link JdbcSessionStore} issues.
+     */
+    static final class FakeSessionTable extends JdbcTemplate {
+
+        static final class Row {
+            String player;
+            String state;
+            long lastAccess;
+            long version;
+            byte[] data;
+        }
+
+        final Map<String, Row> rows = new ConcurrentHashMap<>();
+
+        @Override
+        public synchronized int update(String sql, Object... args) {
+            if (sql.startsWith("INSERT")) {
+                Row row = rows.get((String) args[0]);
+                if (row != null && row.version >= (long) args[4]) return 1;
+                row = new Row();
+                row.player = (String) args[1];
+                row.state = (String) args[2];
+                row.lastAccess = (long) args[3];
+                row.version = (long) args[4];
+                row.data = (byte[]) args[5];
+                rows.put((String) args[0], row);
+                return 1;
+            }
+            if (sql.startsWith("UPDATE sp_sessions SET state")) {
+                Row row = rows.get((String) args[4]);
+                if (row == null || row.version != (long) args[5]) return 0;
+                row.state = (String) args[0];
+                row.lastAccess = (long) args[1];
+                row.version = (long) args[2];
+                row.data = (byte[]) args[3];
+                return 1;
+            }
+            if (sql.startsWith("UPDATE sp_sessions SET last_access")) {
+                Row row = rows.get((String) args[1]);
+                if (row == null) return 0;
+                row.lastAccess = Math.max(row.lastAccess, (long) args[0]);
+                return 1;
+            }
+            if (sql.startsWith("DELETE FROM sp_sessions WHERE id")) {
+                return rows.remove((String) args[0]) == null ? 0 : 1;
+            }
+            if (sql.contains("DELETE FROM sp_sessions")) {
+                long idleBefore = (long) args[0];
+                long finishedBefore = (long) args[1];
+                int before = rows.size();
+                rows.values().removeIf(r -> r.lastAccess < idleBefore
+                        || (!r.state.equals("CREATED") && !r.state.equals("RUNNING") && r.lastAccess < finishedBefore));
+                return before - rows.size();
+            }
+            throw new UnsupportedOperationException(sql);
+        }
+
+        @Override
+        public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+            return batchArgs.stream().mapToInt(args -> update(sql, args)).toArray();
+        }
+
+        @Override
+        public <T> T query(String sql, ResultSetExtractor<T> rse, Object... args) {
+            Row row = rows.get((String) args[0]);
+            try {
+                return rse.extractData(resultSet(row == null ? List.of() : List.of(row.version)));
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            Row row = rows.get((String) args[0]);
+            if (row == null) return List.of();
+            try {
+                ResultSet rs = resultSet(List.of(row.data));
+                rs.next();
+                return List.of(rowMapper.mapRow(rs, 0));
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void query(String sql, RowCallbackHandler rch, Object... args) {
+            List<Object> ids = new ArrayList<>();
+            rows.forEach((id, row) -> {
+                if (Objects.equals(row.player, args[0])) ids.add(id);
+            });
+            try {
+                ResultSet rs = resultSet(ids);
+                while (rs.next()) rch.processRow(rs);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * A single-column result set over {@code values}.
+         */
+        private static ResultSet resultSet(List<?> values) {
+            Iterator<?> it = values.iterator();
+            Object[] current = new Object[1];
+            return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "next" -> {
+                            if (!it.hasNext()) yield false;
+                            current[0] = it.next();
+                            yield true;
+                        }
+                        case "getLong", "getBytes", "getString" -> current[0];
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.brainbuster;
+
+import org.example.brainbuster.config.JwtProperties;
+import org.example.brainbuster.service.JwtService;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+
+    private static final byte[] KEY = new byte[32];
+
+    private static JwtService service() {
+        JwtProperties properties = new JwtProperties();
+        properties.setSecret(Base64.getEncoder().encodeToString(KEY));
+        return new JwtService(properties);
+    }
+
+    private static byte[] expected(String data) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(KEY, "HmacSHA256"));
+        return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void hmac_shouldMatchPlainHmacSha256AndNotCarryStateBetweenCalls() throws Exception {
+        JwtService jwt = service();
+
+        assertArrayEquals(expected("a"), jwt.hmac("a"));
+        assertArrayEquals(expected("b"), jwt.hmac("b"));
+        assertArrayEquals(expected("a"), jwt.hmac("a"));
+    }
+
+    @Test
+    void hmac_fromManyThreads_shouldAgree() throws Exception {
+        JwtService jwt = service();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                results.add(pool.submit(() -> {
+                    for (int i = 0; i < 2_000; i++) {
+                        String data = "sp|" + i;
+                        if (!Arrays.equals(expected(data), jwt.hmac(data))) return false;
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> r : results) assertTrue(r.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.example.brainbuster;
+
+import org.example.brainbuster.model.IncorrectAnswer;
+import org.example.brainbuster.model.Question;
+import org.example.brainbuster.repository.QuestionBatchWriter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuestionBatchWriterTest {
+
+    private FakeJdbc jdbc;
+    private QuestionBatchWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = new FakeJdbc();
+        writer = new QuestionBatchWriter(jdbc);
+    }
+
+    private static Question question(String text, String... wrongs) {
+        Question q = new Question();
+        q.setType("multiple");
+        q.setDifficulty("easy");
+        q.setCategory("Science");
+        q.setQuestion(text);
+        q.setCorrectAnswer("A");
+        q.setContentHash("hash-" + text);
+        for (String w : wrongs) {
+            IncorrectAnswer ia = new IncorrectAnswer();
+            ia.setText(w);
+            q.addIncorrectAnswer(ia);
+        }
+        return q;
+    }
+
+    @Test
+    void insertAll_shouldAssignGeneratedKeysToTheirRows() {
+        Question first = question("Q1", "B", "C");
+        Question second = question("Q2", "D");
+
+        writer.insertAll(List.of(first, second));
+
+        assertEquals(1000L, first.getId());
+        assertEquals(1001L, second.getId());
+        assertEquals(List.of(
+                List.of("multiple", "easy", "Science", "Q1", "A", "hash-Q1"),
+                List.of("multiple", "easy", "Science", "Q2", "A", "hash-Q2")), jdbc.questionRows);
+    }
+
+    @Test
+    void insertAll_shouldInsertAnswersWithTheirQuestionIdAndPosition() {
+        writer.insertAll(List.of(question("Q1", "B", "C", "D"), question("Q2", "E")));
+
+        assertEquals(List.of(
+                List.of("B", 1000L, 0), List.of("C", 1000L, 1), List.of("D", 1000L, 2),
+                List.of("E", 1001L, 0)), jdbc.answerRows);
+    }
+
+    @Test
+    void insertAll_manyQuestions_shouldInsertInChunksAndKeepKeysInOrder() {
+        List<Question> questions = IntStream.range(0, 1_201).mapToObj(i -> question("Q" + i, "B")).toList();
+
+        writer.insertAll(questions);
+
+        assertEquals(List.of(500, 500, 201), jdbc.chunkSizes);
+        for (int i = 0; i < questions.size(); i++) {
+            assertEquals(1000L + i, questions.get(i).getId());
+        }
+        assertEquals(1_201, jdbc.answerRows.size());
+        assertEquals(2200L, jdbc.answerRows.get(1_200).get(1));
+    }
+
+    @Test
+    void insertAll_missingGeneratedKeys_shouldFail() {
+        jdbc.dropKeys = true;
+
+        assertThrows(IllegalStateException.class, () -> writer.insertAll(List.of(question("Q1", "B"), question("Q2", "C"))));
+        assertTrue(jdbc.answerRows.isEmpty());
+    }
+
+    /**
+     * Records the batches and hands out increasing keys, as MySQL does for a multi-row insert.
+     */
+    private static final class FakeJdbc extends JdbcTemplate {
+        final List<List<Object>> questionRows = new ArrayList<>();
+        final List<List<Object>> answerRows = new ArrayList<>();
+        final List<Integer> chunkSizes = new ArrayList<>();
+        long nextKey = 1000;
+        boolean dropKeys;
+
+        @Override
+        public int[] batchUpdate(PreparedStatementCreator psc, BatchPreparedStatementSetter pss, KeyHolder keys) {
+            int n = pss.getBatchSize();
+            chunkSizes.add(n);
+            for (int i = 0; i < n; i++) {
+                Object[] values = new Object[6];
+                PreparedStatement ps = (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                        new Class[]{PreparedStatement.class}, (proxy, method, args) -> {
+                            if (method.getName().equals("setString")) values[(int) args[0] - 1] = args[1];
+                            return null;
+                        });
+                try {
+                    pss.setValues(ps, i);
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+                questionRows.add(Arrays.asList(values));
+                if (!dropKeys || i == 0) keys.getKeyList().add(Map.of("GENERATED_KEY", nextKey++));
+            }
+            return new int[n];
+        }
+
+        @Override
+        public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+            assertTrue(sql.contains("INSERT INTO incorrect_answers"));
+            for (Object[] args : batchArgs) answerRows.add(Arrays.asList(args));
+            return new int[batchArgs.size()];
+        }
+    }
+}
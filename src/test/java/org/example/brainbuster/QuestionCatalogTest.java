@@ -0,0 +1,113 @@
+package org.example.brainbuster;
+
+import org.example.brainbuster.dto.question.QuestionFacet;
+import org.example.brainbuster.dto.question.QuestionReadDto;
+import org.example.brainbuster.service.QuestionCatalog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuestionCatalogTest {
+
+    private QuestionCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new QuestionCatalog();
+        catalog.load(List.of(
+                dto(1L, "multiple", "easy", "Science"),
+                dto(2L, "multiple", "easy", "science"),
+                dto(3L, "boolean", "hard", "History"),
+                dto(4L, "multiple", "medium", "Science")
+        ));
+    }
+
+    private static QuestionReadDto dto(Long id, String type, String difficulty, String category) {
+        return new QuestionReadDto(id, type, difficulty, category, "Q" + id, "A", List.of("B", "C"));
+    }
+
+    @Test
+    void count_shouldMatchFiltersCaseInsensitively() {
+        assertEquals(3, catalog.count("SCIENCE", null, null));
+        assertEquals(2, catalog.count("science", "Easy", null));
+        assertEquals(4, catalog.count(null, null, null));
+        assertEquals(0, catalog.count("art", null, null));
+    }
+
+    @Test
+    void sampleWeighted_shouldReturnDistinctQuestionsFromBucket() {
+        List<QuestionReadDto> picked = catalog.sampleWeighted("science", null, null, 5);
+
+        assertEquals(Set.of(1L, 2L, 4L), new HashSet<>(picked.stream().map(QuestionReadDto::id).toList()));
+        assertEquals(2, catalog.sampleWeighted(null, null, null, 2).stream().distinct().count());
+    }
+
+    @Test
+    void sampleWeighted_shouldFavourLessExposedQuestions() {
+        for (int i = 0; i < 50; i++) catalog.recordExposure(List.of(1L));
+
+        int first = 0;
+        for (int i = 0; i < 2000; i++) {
+            if (catalog.sampleWeighted("science", "easy", null, 1).get(0).id() == 1L) first++;
+        }
+
+        assertTrue(first < 200, "exposed question drawn " + first + " times out of 2000");
+    }
+
+    @Test
+    void put_shouldMoveQuestionBetweenBuckets() {
+        catalog.put(dto(3L, "boolean", "hard", "Science"));
+        catalog.put(dto(5L, "boolean", "easy", "Art"));
+
+        assertEquals(0, catalog.count("history", null, null));
+        assertEquals(4, catalog.count("science", null, null));
+        assertEquals(1, catalog.count("art", null, null));
+        assertEquals(5, catalog.size());
+    }
+
+    @Test
+    void facets_shouldFollowBucketSizes() {
+        catalog.remove(3L);
+        catalog.put(dto(5L, "multiple", "easy", "SCIENCE"));
+
+        List<QuestionFacet> facets = catalog.facets();
+
+        assertEquals(List.of(
+                new QuestionFacet("Science", "easy", "multiple", 3),
+                new QuestionFacet("Science", "medium", "multiple", 1)
+        ), facets);
+    }
+
+    @Test
+    void remove_shouldDropQuestion() {
+        catalog.remove(1L);
+
+        assertTrue(catalog.get(1L).isEmpty());
+        assertEquals(1, catalog.count("science", "easy", null));
+    }
+
+    @Test
+    void textSearch_shouldMatchWordPrefixesAndRankQuestionTextFirst() {
+        catalog.load(List.of(
+                new QuestionReadDto(1L, "multiple", "easy", "Science", "What is the chemical formula of water?", "H2O", List.of("CO2")),
+                new QuestionReadDto(2L, "multiple", "easy", "Science", "Which gas do plants absorb?", "CO2", List.of("Water vapour")),
+                new QuestionReadDto(3L, "boolean", "easy", "History", "Was Rome founded in 753 BC?", "True", List.of("False"))
+        ));
+
+        List<Long> ids = catalog.textSearch("wat", null, null, null).stream().map(QuestionReadDto::id).toList();
+
+        assertEquals(List.of(1L, 2L), ids);
+        assertTrue(catalog.textSearch("water formula", "history", null, null).isEmpty());
+    }
+
+    @Test
+    void textSearch_shouldFollowUpdates() {
+        catalog.put(new QuestionReadDto(1L, "multiple", "easy", "Science", "Name the largest planet", "Jupiter", List.of("Mars")));
+
+        assertEquals(1, catalog.textSearch("planet", null, null, null).size());
+        assertTrue(catalog.textSearch("q1", null, null, null).isEmpty());
+    }
+}
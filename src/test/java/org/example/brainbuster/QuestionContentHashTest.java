@@ -0,0 +1,34 @@
+package org.example.brainbuster;
+
+import org.example.brainbuster.service.QuestionContentHash;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuestionContentHashTest {
+
+    @Test
+    void normalize_shouldUnescapeHtmlAndCollapseWhitespace() {
+        assertEquals("Who wrote \"Hamlet\"?", QuestionContentHash.normalize("  Who wrote\n &quot;Hamlet&quot;? "));
+        assertEquals("Science & Nature", QuestionContentHash.normalize("Science &amp; Nature"));
+    }
+
+    @Test
+    void of_shouldIgnoreEscapingCaseAndAnswerOrder() {
+        String a = QuestionContentHash.of("multiple", "Who wrote &quot;Hamlet&quot;?", "Shakespeare", List.of("Marlowe", "Jonson"));
+        String b = QuestionContentHash.of("Multiple", "who wrote \"hamlet\"?", "shakespeare", List.of("jonson", "Marlowe"));
+
+        assertEquals(a, b);
+        assertEquals(64, a.length());
+    }
+
+    @Test
+    void of_differentCorrectAnswer_shouldDiffer() {
+        String a = QuestionContentHash.of("boolean", "Is the sky blue?", "True", List.of("False"));
+        String b = QuestionContentHash.of("boolean", "Is the sky blue?", "False", List.of("True"));
+
+        assertNotEquals(a, b);
+    }
+}
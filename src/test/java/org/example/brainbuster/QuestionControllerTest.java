@@ -9,7 +9,9 @@ import org.junit.jupiter.api.Test;
 import org.mockito.*;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 
 import java.util.*;
 
@@ -31,15 +33,32 @@ class QuestionControllerTest {
 
     @Test
     void getAllQuestions_shouldReturnList() {
-        List<Question> questions = Arrays.asList(new Question(), new Question());
+        List<QuestionReadDto> questions = Arrays.asList(
+            new QuestionReadDto(1L, "multiple", "easy", "science", "What is water?", "H2O", List.of("CO2", "O2", "N2")),
+            new QuestionReadDto(2L, "boolean", "medium", "math", "Is 2+2=4?", "Yes", List.of("No"))
+        );
         when(questionService.getAllQuestions()).thenReturn(questions);
 
-        List<Question> result = questionController.getAllQuestions();
+        ResponseEntity<Object> response = questionController.getAllQuestions(null, null);
 
-        assertEquals(2, result.size());
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(questions, response.getBody());
         verify(questionService).getAllQuestions();
     }
 
+    @Test
+    void getAllQuestions_withPaging_shouldReturnPage() {
+        Page<QuestionReadDto> page = new PageImpl<>(List.of(
+            new QuestionReadDto(3L, "boolean", "hard", "history", "Was Rome founded in 753 BC?", "True", List.of("False"))
+        ));
+        when(questionService.getQuestions(2, 100)).thenReturn(page);
+
+        ResponseEntity<Object> response = questionController.getAllQuestions(2, null);
+
+        assertEquals(page, response.getBody());
+        verify(questionService, never()).getAllQuestions();
+    }
+
     @Test
     void search_noPaging_shouldReturnListOfDto() {
         List<QuestionReadDto> mockList = Arrays.asList(
@@ -50,7 +69,7 @@ class QuestionControllerTest {
 
         when(questionService.search(null, null, null, null, 0, 1000, null)).thenReturn(mockPage);
 
-        ResponseEntity<?> response = questionController.search(null, null, null, null, null, null, null);
+        ResponseEntity<?> response = questionController.search(null, null, null, null, null, null, null, null);
 
         assertEquals(200, response.getStatusCode().value());
         assertTrue(response.getBody() instanceof List<?>);
@@ -71,7 +90,7 @@ class QuestionControllerTest {
 
         when(questionService.search("science", "easy", "multiple", "water", 1, 5, "difficulty")).thenReturn(mockPage);
 
-        ResponseEntity<?> response = questionController.search("science", "easy", "multiple", "water", 1, 5, "difficulty");
+        ResponseEntity<?> response = questionController.search("science", "easy", "multiple", "water", 1, 5, "difficulty", null);
 
         assertEquals(200, response.getStatusCode().value());
         assertEquals(mockPage, response.getBody());
@@ -79,6 +98,32 @@ class QuestionControllerTest {
         verify(questionService).search("science", "easy", "multiple", "water", 1, 5, "difficulty");
     }
 
+    @Test
+    void searchByCursor_shouldDelegateWithDefaultSize() {
+        QuestionCursorPage mockPage = new QuestionCursorPage(
+                List.of(new QuestionReadDto(1L, "multiple", "easy", "science", "What is water?", "H2O", List.of("CO2"))),
+                "next-cursor"
+        );
+
+        when(questionService.searchAfter("science", null, null, null, "", 20, "-category")).thenReturn(mockPage);
+
+        QuestionCursorPage result = questionController.searchByCursor("science", null, null, null, "", null, "-category");
+
+        assertEquals(mockPage, result);
+        verify(questionService).searchAfter("science", null, null, null, "", 20, "-category");
+    }
+
+    @Test
+    void getFacets_shouldReturnCountsFromService() {
+        List<QuestionFacet> facets = List.of(
+                new QuestionFacet("History", "hard", "boolean", 12),
+                new QuestionFacet("Science", "easy", "multiple", 40)
+        );
+        when(questionService.getFacets()).thenReturn(facets);
+
+        assertEquals(facets, questionController.getFacets());
+        verify(questionService).getFacets();
+    }
 
     @Test
     void getQuestionById_existingId_shouldReturnQuestionReadDto() {
@@ -89,7 +134,7 @@ class QuestionControllerTest {
         );
         when(questionService.getQuestionByIdDto(id)).thenReturn(Optional.of(dto));
 
-        ResponseEntity<QuestionReadDto> response = questionController.getQuestionById(id);
+        ResponseEntity<QuestionReadDto> response = questionController.getQuestionById(id, null);
 
         assertEquals(200, response.getStatusCode().value());
         assertEquals(dto, response.getBody());
@@ -101,12 +146,39 @@ class QuestionControllerTest {
         Long id = 99L;
         when(questionService.getQuestionByIdDto(id)).thenReturn(Optional.empty());
 
-        ResponseEntity<QuestionReadDto> response = questionController.getQuestionById(id);
+        ResponseEntity<QuestionReadDto> response = questionController.getQuestionById(id, null);
 
         assertEquals(404, response.getStatusCode().value());
         assertNull(response.getBody());
     }
 
+    @Test
+    void getQuestionById_matchingETag_shouldReturn304() {
+        QuestionReadDto dto = new QuestionReadDto(
+                1L, "multiple", "easy", "science", "What is water?", "H2O",
+                List.of("CO2", "O2", "N2")
+        );
+        when(questionService.getQuestionByIdDto(1L)).thenReturn(Optional.of(dto));
+
+        String etag = questionController.getQuestionById(1L, null).getHeaders().getETag();
+        ResponseEntity<QuestionReadDto> response = questionController.getQuestionById(1L, "W/" + etag);
+
+        assertNotNull(etag);
+        assertEquals(304, response.getStatusCode().value());
+        assertEquals(etag, response.getHeaders().getETag());
+        assertNull(response.getBody());
+    }
+
+    @Test
+    void search_matchingETag_shouldReturn304WithoutSearching() {
+        when(questionService.searchETag("science", null, null, null, null, null, null)).thenReturn("\"v1\"");
+
+        ResponseEntity<?> response = questionController.search("science", null, null, null, null, null, null, "\"v0\", \"v1\"");
+
+        assertEquals(304, response.getStatusCode().value());
+        verify(questionService, never()).search(any(), any(), any(), any(), anyInt(), anyInt(), any());
+    }
+
     @Test
     void createQuestion_shouldReturnCreatedQuestionReadDto() {
         QuestionCreateDto createDto = new QuestionCreateDto(
@@ -129,6 +201,35 @@ class QuestionControllerTest {
         verify(questionService).toReadDto(savedQuestion);
     }
 
+    @Test
+    void importQuestions_shouldReturnBulkResult() {
+        List<QuestionCreateDto> rows = List.of(
+                new QuestionCreateDto("multiple", "medium", "math", "What is 2+2?", "4", List.of("3", "5")),
+                new QuestionCreateDto("boolean", "easy", "math", "Is 1 odd?", "True", List.of("True"))
+        );
+        BulkResult result = new BulkResult(1, List.of(new BulkResult.RowError(1,
+                "At least one incorrect answer different from the correct answer is required.")));
+
+        when(questionService.importQuestions(rows)).thenReturn(result);
+
+        assertEquals(result, questionController.importQuestions(rows));
+        verify(questionService).importQuestions(rows);
+    }
+
+    @Test
+    void patchQuestions_shouldReturnBulkResult() {
+        List<QuestionPatchDto> patches = List.of(
+                new QuestionPatchDto(1L, null, "hard", null, null, null, null),
+                new QuestionPatchDto(99L, null, null, null, "Missing?", null, null)
+        );
+        BulkResult result = new BulkResult(1, List.of(new BulkResult.RowError(1, "Question with id: 99 not found")));
+
+        when(questionService.patchQuestions(patches)).thenReturn(result);
+
+        assertEquals(result, questionController.patchQuestions(patches));
+        verify(questionService).patchQuestions(patches);
+    }
+
     @Test
     void updateQuestion_existingId_shouldReturnUpdatedReadDto() {
         Long id = 1L;
@@ -191,4 +292,12 @@ class QuestionControllerTest {
         assertEquals(404, response.getStatusCode().value());
         verify(questionService).deleteQuestion(id);
     }
+
+    @Test
+    void duplicateQuestion_shouldOnlyHandleDuplicateKeys() throws Exception {
+        ExceptionHandler handler = QuestionController.class.getMethod("duplicateQuestion").getAnnotation(ExceptionHandler.class);
+
+        assertArrayEquals(new Class<?>[]{DuplicateKeyException.class}, handler.value());
+        assertEquals(409, questionController.duplicateQuestion().getStatusCode().value());
+    }
 }
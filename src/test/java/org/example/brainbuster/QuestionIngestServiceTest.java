@@ -0,0 +1,89 @@
+package org.example.brainbuster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.brainbuster.dto.question.IngestResult;
+import org.example.brainbuster.model.Question;
+import org.example.brainbuster.service.QuestionIngestService;
+import org.example.brainbuster.service.QuestionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class QuestionIngestServiceTest {
+
+    private static final String PACK = """
+            {"response_code": 0, "results": [
+              {"type": "boolean", "difficulty": "easy", "category": "Science",
+               "question": "Is water wet?", "correct_answer": "True", "incorrect_answers": ["False"]},
+              {"type": "boolean", "difficulty": "easy", "category": "Science",
+               "question": "Is fire cold?", "correct_answer": "False", "incorrect_answers": ["True"]}
+            ]}
+            """;
+
+    @Mock
+    private QuestionService questionService;
+
+    private QuestionIngestService service;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        service = new QuestionIngestService(questionService, new ObjectMapper());
+    }
+
+    @Test
+    void ingest_batchCollidingWithConcurrentIngest_shouldRetryAndCountSkippedRowsAsDuplicates() throws Exception {
+        when(questionService.importNew(anyList()))
+                .thenThrow(new DuplicateKeyException("Duplicate entry for key 'uk_questions_content_hash'"))
+                .thenAnswer(inv -> {
+                    List<Question> batch = inv.getArgument(0);
+                    return batch.subList(0, 1);
+                });
+
+        IngestResult result = service.ingest(new ByteArrayInputStream(PACK.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(2, result.read());
+        assertEquals(1, result.inserted());
+        assertEquals(1, result.duplicates());
+        verify(questionService, times(2)).importNew(anyList());
+    }
+
+    @Test
+    void ingest_batchKeepsColliding_shouldGiveUp() {
+        when(questionService.importNew(anyList())).thenThrow(new DuplicateKeyException("Duplicate entry"));
+
+        assertThrows(DuplicateKeyException.class,
+                () -> service.ingest(new ByteArrayInputStream(PACK.getBytes(StandardCharsets.UTF_8))));
+        verify(questionService, times(3)).importNew(anyList());
+    }
+
+    @Test
+    void ingest_shouldNotBackfillContentHashes() throws Exception {
+        when(questionService.importNew(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+        service.ingest(new ByteArrayInputStream(PACK.getBytes(StandardCharsets.UTF_8)));
+
+        verify(questionService, never()).backfillContentHashes(anyLong(), anyInt());
+    }
+
+    @Test
+    void backfillContentHashes_shouldWalkAllQuestionsWithoutHashOnce() {
+        when(questionService.backfillContentHashes(Long.MIN_VALUE, 500)).thenReturn(List.of(3L, 8L));
+        when(questionService.backfillContentHashes(8L, 500)).thenReturn(List.of(12L));
+        when(questionService.backfillContentHashes(12L, 500)).thenReturn(List.of());
+
+        service.backfillContentHashes();
+
+        verify(questionService, times(3)).backfillContentHashes(anyLong(), anyInt());
+    }
+}
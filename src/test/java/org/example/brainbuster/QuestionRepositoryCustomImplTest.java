@@ -0,0 +1,151 @@
+package org.example.brainbuster;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.example.brainbuster.repository.QuestionRepositoryCustomImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class QuestionRepositoryCustomImplTest {
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private TypedQuery<Long> query;
+
+    @InjectMocks
+    private QuestionRepositoryCustomImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(entityManager.createQuery(anyString(), eq(Long.class))).thenReturn(query);
+        when(query.setParameter(anyString(), any())).thenReturn(query);
+        when(query.setFirstResult(anyInt())).thenReturn(query);
+        when(query.setMaxResults(anyInt())).thenReturn(query);
+        when(query.getResultList()).thenReturn(List.of());
+        when(query.getSingleResult()).thenReturn(0L);
+    }
+
+    private String jpql() {
+        return queries().get(0);
+    }
+
+    private List<String> queries() {
+        var captor = org.mockito.ArgumentCaptor.forClass(String.class);
+        verify(entityManager, atLeastOnce()).createQuery(captor.capture(), eq(Long.class));
+        return captor.getAllValues();
+    }
+
+    @Test
+    void searchIdsAfter_shouldFilterOnGeneratedKeyColumns() {
+        repository.searchIdsAfter("science", "easy", "multiple", List.of(), "id", false, null, null, 21);
+
+        String jpql = jpql();
+        assertTrue(jpql.contains("q.categoryKey = :category"));
+        assertTrue(jpql.contains("q.difficultyKey = :difficulty"));
+        assertTrue(jpql.contains("q.typeKey = :type"));
+        assertFalse(jpql.contains("LOWER(q.category"));
+        verify(query).setParameter("category", "science");
+        verify(query).setParameter("difficulty", "easy");
+        verify(query).setParameter("type", "multiple");
+        verify(query).setMaxResults(21);
+    }
+
+    @Test
+    void searchIdsAfter_withoutFilters_shouldNotRestrictKeys() {
+        repository.searchIdsAfter(null, null, null, List.of(), "id", false, null, null, 10);
+
+        assertFalse(jpql().contains("Key ="));
+        verify(query, never()).setParameter(anyString(), any());
+    }
+
+    @Test
+    void searchIdsAfter_descendingKey_shouldSeekBelowKeyAndPastIdWithinTies() {
+        repository.searchIdsAfter(null, null, null, List.of(), "category", true, "History", 7L, 11);
+
+        String jpql = jpql();
+        assertTrue(jpql.endsWith(" AND (q.category < :afterKey OR (q.category = :afterKey AND q.id > :afterId))"
+                + " ORDER BY q.category DESC, q.id ASC"));
+        verify(query).setParameter("afterKey", "History");
+        verify(query).setParameter("afterId", 7L);
+        verify(query).setMaxResults(11);
+    }
+
+    @Test
+    void searchIdsAfter_ascendingKey_shouldSeekAboveKeyAndPastIdWithinTies() {
+        repository.searchIdsAfter(null, null, null, List.of(), "question", false, "Who", 3L, 11);
+
+        assertTrue(jpql().endsWith(" AND (q.question > :afterKey OR (q.question = :afterKey AND q.id > :afterId))"
+                + " ORDER BY q.question ASC, q.id ASC"));
+    }
+
+    @Test
+    void searchIdsAfter_byId_shouldSeekOnIdInEitherDirection() {
+        repository.searchIdsAfter(null, null, null, List.of(), "id", true, 9L, 9L, 5);
+
+        assertTrue(jpql().endsWith(" AND q.id < :afterId ORDER BY q.id DESC"));
+        verify(query).setParameter("afterId", 9L);
+        verify(query, never()).setParameter(eq("afterKey"), any());
+    }
+
+    @Test
+    void searchIdsAfter_firstPage_shouldNotSeek() {
+        repository.searchIdsAfter(null, null, null, List.of(), "category", false, null, null, 5);
+
+        assertFalse(jpql().contains(":after"));
+        assertTrue(jpql().endsWith(" ORDER BY q.category ASC, q.id ASC"));
+    }
+
+    @Test
+    void searchIdsAfter_unknownProperty_shouldBeRejected() {
+        assertThrows(IllegalArgumentException.class, () ->
+                repository.searchIdsAfter(null, null, null, List.of(), "contentHash", false, null, null, 5));
+    }
+
+    @Test
+    void searchIdsByWords_shouldRequireEveryWordToStartAWordOfTextOrAnswers() {
+        when(query.getResultList()).thenReturn(List.of(4L, 9L));
+        when(query.getSingleResult()).thenReturn(12L);
+
+        var page = repository.searchIdsByWords(null, null, null, List.of("capital", "fr"),
+                PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "category").and(Sort.by("id"))));
+
+        assertEquals(List.of(4L, 9L), page.getContent());
+        assertEquals(12, page.getTotalElements());
+        List<String> queries = queries();
+        String select = queries.get(0), count = queries.get(1);
+        assertTrue(select.startsWith("SELECT q.id FROM Question q"));
+        assertTrue(select.endsWith(" ORDER BY q.category DESC, q.id ASC"));
+        assertTrue(count.startsWith("SELECT COUNT(q) FROM Question q"));
+        assertFalse(count.contains("ORDER BY"));
+        for (String jpql : queries) {
+            assertTrue(jpql.contains("LOWER(q.question) LIKE :w0s OR LOWER(q.question) LIKE :w0i"));
+            assertTrue(jpql.contains("LOWER(q.correctAnswer) LIKE :w1s"));
+            assertTrue(jpql.contains("EXISTS (SELECT 1 FROM IncorrectAnswer ia WHERE ia.question = q AND (LOWER(ia.text) LIKE :w1s"));
+        }
+        verify(query, times(2)).setParameter("w0s", "capital%");
+        verify(query, times(2)).setParameter("w0i", "% capital%");
+        verify(query, times(2)).setParameter("w1s", "fr%");
+        verify(query).setFirstResult(2);
+        verify(query).setMaxResults(2);
+    }
+
+    @Test
+    void searchIdsByWords_unknownSortProperty_shouldBeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> repository.searchIdsByWords(null, null, null,
+                List.of("paris"), PageRequest.of(0, 10, Sort.by("contentHash"))));
+    }
+}
@@ -0,0 +1,635 @@
+package org.example.brainbuster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.brainbuster.config.CatalogProperties;
+import org.example.brainbuster.dto.question.BulkResult;
+import org.example.brainbuster.dto.question.QuestionCreateDto;
+import org.example.brainbuster.dto.question.QuestionCursorPage;
+import org.example.brainbuster.dto.question.QuestionPatchDto;
+import org.example.brainbuster.dto.question.QuestionReadDto;
+import org.example.brainbuster.model.IncorrectAnswer;
+import org.example.brainbuster.model.Question;
+import org.example.brainbuster.repository.AnswerRow;
+import org.example.brainbuster.repository.ContentHashRow;
+import org.example.brainbuster.repository.QuestionBatchWriter;
+import org.example.brainbuster.repository.QuestionChangeLog;
+import org.example.brainbuster.repository.QuestionRepository;
+import org.example.brainbuster.repository.QuestionRow;
+import org.example.brainbuster.service.QuestionCatalog;
+import org.example.brainbuster.service.QuestionContentHash;
+import org.example.brainbuster.service.QuestionService;
+import org.example.brainbuster.service.SearchCoalescer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class QuestionServiceTest {
+
+    @Mock
+    private QuestionRepository questionRepository;
+
+    @Mock
+    private QuestionBatchWriter batchWriter;
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private QuestionChangeLog changeLog;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final QuestionCatalog catalog = new QuestionCatalog();
+    private QuestionService service;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        service = new QuestionService(questionRepository, batchWriter, catalog, objectMapper, entityManagerFactory,
+                new SearchCoalescer(new SimpleMeterRegistry()), new CatalogProperties(), changeLog);
+    }
+
+    private static List<QuestionRow> rows(long fromId, long toId) {
+        return LongStream.rangeClosed(fromId, toId)
+                .mapToObj(id -> new QuestionRow(id, "multiple", "easy", "Science", "Q" + id, "A"))
+                .toList();
+    }
+
+    @Test
+    void exportNdjson_shouldWalkTableByIdInBatchesOfRows() throws Exception {
+        when(questionRepository.findRowsAfter(eq(Long.MIN_VALUE), any(Pageable.class))).thenReturn(rows(1, 500));
+        when(questionRepository.findRowsAfter(eq(500L), any(Pageable.class))).thenReturn(rows(501, 502));
+        when(questionRepository.findAnswerRows(anyCollection())).thenAnswer(inv -> {
+            Collection<Long> ids = inv.getArgument(0);
+            return ids.stream().map(id -> new AnswerRow(id, "B" + id)).toList();
+        });
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.exportNdjson(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(502, lines.length);
+        QuestionReadDto last = objectMapper.readValue(lines[501], QuestionReadDto.class);
+        assertEquals(502L, last.id());
+        assertEquals(List.of("B502"), last.incorrectAnswers());
+
+        ArgumentCaptor<Pageable> pages = ArgumentCaptor.forClass(Pageable.class);
+        verify(questionRepository, times(2)).findRowsAfter(anyLong(), pages.capture());
+        assertTrue(pages.getAllValues().stream().allMatch(p -> p.getPageNumber() == 0 && p.getPageSize() == 500));
+        // Entities would stay in the request's persistence context until the response is done.
+        verify(questionRepository, never()).findAllByIdIn(any());
+        verify(questionRepository, never()).findAllWithAnswers();
+        verify(questionRepository, never()).findById(any());
+    }
+
+    @Test
+    void exportNdjson_emptyBank_shouldWriteNothing() throws Exception {
+        when(questionRepository.findRowsAfter(anyLong(), any(Pageable.class))).thenReturn(List.of());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.exportNdjson(out);
+
+        assertEquals(0, out.size());
+        verify(questionRepository, never()).findAnswerRows(any());
+    }
+
+    @Test
+    void importQuestions_shouldSkipRowsAlreadyInBankOrEarlierInImport() {
+        stubInserts();
+        QuestionCreateDto fresh = new QuestionCreateDto("boolean", "easy", "Science", "Is water wet?", "True", List.of("False"));
+        QuestionCreateDto stored = new QuestionCreateDto("boolean", "easy", "Science", "Is fire cold?", "False", List.of("True"));
+        when(questionRepository.findExistingContentHashes(anyCollection()))
+                .thenReturn(List.of(QuestionContentHash.of("boolean", "Is fire cold?", "False", List.of("True"))));
+
+        BulkResult result = service.importQuestions(Arrays.asList(fresh, stored, null, fresh));
+
+        assertEquals(1, result.succeeded());
+        assertEquals(List.of(1, 2, 3), result.errors().stream().map(BulkResult.RowError::index).toList());
+        ArgumentCaptor<List<Question>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(batchWriter).insertAll(inserted.capture());
+        assertEquals(List.of("Is water wet?"), inserted.getValue().stream().map(Question::getQuestion).toList());
+        verify(changeLog).record(List.of(100L));
+    }
+
+    @Test
+    void importQuestions_shouldReportInvalidRowsAndInsertTheValidOnesInOrder() {
+        stubInserts();
+        List<QuestionCreateDto> rows = Arrays.asList(
+                new QuestionCreateDto("boolean", "easy", "Science", "Is water wet?", "True", List.of("False")),
+                new QuestionCreateDto(" ", "easy", "Science", "Is the type blank?", "True", List.of("False")),
+                null,
+                new QuestionCreateDto("boolean", "easy", "Science", "Only one answer?", "True", List.of("True", " ")),
+                new QuestionCreateDto("multiple", "hard", "History", "Who?", "Caesar", Arrays.asList("Brutus", null)),
+                new QuestionCreateDto("multiple", "hard", "History", " Who crossed the Rubicon? ", "Caesar",
+                        List.of("Pompey ", "Brutus", "Pompey")));
+
+        BulkResult result = service.importQuestions(rows);
+
+        assertEquals(2, result.succeeded());
+        assertEquals(List.of(
+                new BulkResult.RowError(1, "type must not be blank."),
+                new BulkResult.RowError(2, "Row is empty."),
+                new BulkResult.RowError(3, "At least one incorrect answer different from the correct answer is required."),
+                new BulkResult.RowError(4, "incorrectAnswers must be a list of strings.")), result.errors());
+        ArgumentCaptor<List<Question>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(batchWriter).insertAll(inserted.capture());
+        List<Question> written = inserted.getValue();
+        assertEquals(List.of("Is water wet?", "Who crossed the Rubicon?"), written.stream().map(Question::getQuestion).toList());
+        assertEquals(List.of("Pompey", "Brutus"),
+                written.get(1).getIncorrectAnswers().stream().map(IncorrectAnswer::getText).toList());
+        assertTrue(written.get(1).getIncorrectAnswers().stream().allMatch(ia -> ia.getQuestion() == written.get(1)));
+        assertEquals(QuestionContentHash.of(written.get(1)), written.get(1).getContentHash());
+        assertEquals(List.of(100L, 101L), written.stream().map(Question::getId).toList());
+    }
+
+    @Test
+    void importQuestions_tooManyRows_shouldBeRejectedBeforeAnyWork() {
+        List<QuestionCreateDto> rows = Collections.nCopies(50_001, null);
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> service.importQuestions(rows));
+
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, e.getStatusCode());
+        verifyNoInteractions(batchWriter, questionRepository);
+    }
+
+    private static Question withAnswers(long id, String... texts) {
+        Question q = question(id, "Question " + id + "?");
+        for (int i = 0; i < texts.length; i++) {
+            IncorrectAnswer ia = new IncorrectAnswer();
+            ia.setId(id * 10 + i);
+            ia.setText(texts[i]);
+            q.addIncorrectAnswer(ia);
+        }
+        return q;
+    }
+
+    private BulkResult patchAnswers(Question q, String... answers) {
+        when(questionRepository.findAllByIdIn(anyCollection())).thenReturn(List.of(q));
+        return service.patchQuestions(List.of(new QuestionPatchDto(q.getId(), null, null, null, null, null, List.of(answers))));
+    }
+
+    @Test
+    void patchQuestions_reorderedAnswers_shouldMoveTheExistingRows() {
+        Question q = withAnswers(1L, "B", "C", "D");
+        List<IncorrectAnswer> before = List.copyOf(q.getIncorrectAnswers());
+
+        assertEquals(1, patchAnswers(q, "D", "B", "C").succeeded());
+
+        assertEquals(List.of(before.get(2), before.get(0), before.get(1)), q.getIncorrectAnswers());
+        assertEquals(List.of("D", "B", "C"), q.getIncorrectAnswers().stream().map(IncorrectAnswer::getText).toList());
+        assertTrue(before.stream().allMatch(ia -> ia.getQuestion() == q));
+    }
+
+    @Test
+    void patchQuestions_fewerAnswers_shouldKeepTheRemainingRowsAndOrphanTheRest() {
+        Question q = withAnswers(1L, "B", "C", "D");
+        List<IncorrectAnswer> before = List.copyOf(q.getIncorrectAnswers());
+
+        patchAnswers(q, "B", "D");
+
+        assertEquals(List.of(before.get(0), before.get(2)), q.getIncorrectAnswers());
+        assertNull(before.get(1).getQuestion());
+    }
+
+    @Test
+    void patchQuestions_moreAnswers_shouldAppendNewRowsOnly() {
+        Question q = withAnswers(1L, "B");
+        IncorrectAnswer kept = q.getIncorrectAnswers().get(0);
+
+        patchAnswers(q, "B", "C");
+
+        assertSame(kept, q.getIncorrectAnswers().get(0));
+        IncorrectAnswer added = q.getIncorrectAnswers().get(1);
+        assertNull(added.getId());
+        assertEquals("C", added.getText());
+        assertSame(q, added.getQuestion());
+    }
+
+    @Test
+    void patchQuestions_changedTexts_shouldRewriteLeftoverRowsInPlace() {
+        Question q = withAnswers(1L, "B", "C", "D");
+        List<IncorrectAnswer> before = List.copyOf(q.getIncorrectAnswers());
+
+        patchAnswers(q, "C", "E");
+
+        // C moves to the front; E reuses B's row; D's row goes.
+        assertEquals(List.of(before.get(1), before.get(0)), q.getIncorrectAnswers());
+        assertEquals(List.of("C", "E"), q.getIncorrectAnswers().stream().map(IncorrectAnswer::getText).toList());
+        assertNull(before.get(2).getQuestion());
+        assertEquals(QuestionContentHash.of(q), q.getContentHash());
+    }
+
+    @Test
+    void patchQuestions_shouldReportBadRowsAndStillApplyTheValidOnes() {
+        Question first = withAnswers(1L, "B", "C");
+        Question untouched = withAnswers(2L, "B", "C");
+        Question last = withAnswers(3L, "B", "C");
+        when(questionRepository.findAllByIdIn(anyCollection())).thenReturn(List.of(first, untouched, last));
+
+        BulkResult result = service.patchQuestions(Arrays.asList(
+                new QuestionPatchDto(1L, null, "hard", null, null, null, List.of("C", "B")),
+                new QuestionPatchDto(99L, null, "hard", null, null, null, null),
+                new QuestionPatchDto(2L, null, "hard", null, null, null, List.of(" ", "True")),
+                new QuestionPatchDto(2L, " ", "hard", null, null, null, null),
+                new QuestionPatchDto(null, null, "hard", null, null, null, null),
+                null,
+                new QuestionPatchDto(3L, null, null, null, null, "B", List.of("B", "X"))));
+
+        assertEquals(2, result.succeeded());
+        assertEquals(List.of(
+                new BulkResult.RowError(1, "Question with id: 99 not found"),
+                new BulkResult.RowError(2, "At least one incorrect answer different from the correct answer is required."),
+                new BulkResult.RowError(3, "type must not be blank."),
+                new BulkResult.RowError(4, "id is required."),
+                new BulkResult.RowError(5, "id is required.")), result.errors());
+        assertEquals("hard", first.getDifficulty());
+        assertEquals(List.of("C", "B"), first.getIncorrectAnswers().stream().map(IncorrectAnswer::getText).toList());
+        assertEquals("easy", untouched.getDifficulty());
+        assertEquals(List.of("B", "C"), untouched.getIncorrectAnswers().stream().map(IncorrectAnswer::getText).toList());
+        assertEquals("B", last.getCorrectAnswer());
+        assertEquals(List.of("X"), last.getIncorrectAnswers().stream().map(IncorrectAnswer::getText).toList());
+        assertEquals("hard", catalog.get(1L).orElseThrow().difficulty());
+        assertTrue(catalog.get(2L).isEmpty());
+    }
+
+    @Test
+    void patchQuestions_contentOfAnotherStoredQuestion_shouldReportTheRowAndKeepTheQuestion() {
+        Question q = withAnswers(1L, "B", "C");
+        when(questionRepository.findAllByIdIn(anyCollection())).thenReturn(List.of(q));
+        String taken = QuestionContentHash.of("boolean", "Question 2?", "True", List.of("B", "C"));
+        when(questionRepository.findContentHashOwners(anyCollection())).thenReturn(List.of(new ContentHashRow(taken, 2L)));
+
+        BulkResult result = service.patchQuestions(List.of(
+                new QuestionPatchDto(1L, null, null, null, " question 2? ", null, null),
+                new QuestionPatchDto(1L, null, "hard", null, null, null, null)));
+
+        assertEquals(List.of(new BulkResult.RowError(0, "Question 2 has the same content.")), result.errors());
+        assertEquals("Question 1?", q.getQuestion());
+        assertEquals("hard", q.getDifficulty());
+    }
+
+    @Test
+    void patchQuestions_rowsGivingTwoQuestionsTheSameContent_shouldReportTheLaterRow() {
+        Question first = withAnswers(1L, "B", "C");
+        Question second = withAnswers(2L, "C", "B");
+        when(questionRepository.findAllByIdIn(anyCollection())).thenReturn(List.of(first, second));
+
+        BulkResult result = service.patchQuestions(List.of(
+                new QuestionPatchDto(1L, null, null, null, "Same?", null, null),
+                new QuestionPatchDto(2L, null, null, "History", "Same?", null, null)));
+
+        assertEquals(List.of(new BulkResult.RowError(1, "Question 1 has the same content.")), result.errors());
+        assertEquals("Same?", first.getQuestion());
+        assertEquals("Question 2?", second.getQuestion());
+        assertEquals("Science", second.getCategory());
+    }
+
+    @Test
+    void patchQuestions_sameQuestionEditedTwice_shouldCheckTheContentOfTheLaterEdit() {
+        Question q = withAnswers(1L, "B", "C");
+        when(questionRepository.findAllByIdIn(anyCollection())).thenReturn(List.of(q));
+        String taken = QuestionContentHash.of("boolean", "Final?", "False", List.of("B", "C"));
+        when(questionRepository.findContentHashOwners(anyCollection())).thenAnswer(inv ->
+                inv.<Collection<String>>getArgument(0).contains(taken) ? List.of(new ContentHashRow(taken, 2L)) : List.of());
+
+        BulkResult result = service.patchQuestions(List.of(
+                new QuestionPatchDto(1L, null, null, null, "Final?", null, null),
+                new QuestionPatchDto(1L, null, null, null, null, "False", null)));
+
+        assertEquals(List.of(new BulkResult.RowError(1, "Question 2 has the same content.")), result.errors());
+        assertEquals("True", q.getCorrectAnswer());
+    }
+
+    @Test
+    void importQuestions_rowsDifferingOnlyInCategory_shouldReportTheLaterAsDuplicate() {
+        stubInserts();
+
+        BulkResult result = service.importQuestions(List.of(
+                new QuestionCreateDto("boolean", "easy", "Science", "Is water wet?", "True", List.of("False")),
+                new QuestionCreateDto("boolean", "hard", "Nature", "Is water  wet?", "True", List.of("False"))));
+
+        assertEquals(1, result.succeeded());
+        assertEquals(List.of(new BulkResult.RowError(1, "The same question is already in row 0.")), result.errors());
+        ArgumentCaptor<List<Question>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(batchWriter).insertAll(inserted.capture());
+        assertEquals(List.of("Science"), inserted.getValue().stream().map(Question::getCategory).toList());
+    }
+
+    @Test
+    void refreshCatalog_questionsChangedElsewhere_shouldApplyJustThoseAndChangeSearchETag() {
+        when(changeLog.now()).thenReturn(100_000L);
+        when(questionRepository.findAllWithAnswers()).thenReturn(List.of(question(1L, "Is water wet?")));
+        service.loadCatalog();
+        String before = service.searchETag("science", null, null, null, null, null, null);
+
+        when(changeLog.now()).thenReturn(110_000L);
+        service.refreshCatalog();
+        assertEquals(before, service.searchETag("science", null, null, null, null, null, null));
+
+        when(changeLog.now()).thenReturn(120_000L);
+        when(changeLog.othersSince(anyLong())).thenReturn(List.of(
+                new QuestionChangeLog.Change(7, 2L, 115_000L), new QuestionChangeLog.Change(8, 1L, 116_000L)));
+        when(questionRepository.findAllByIdIn(List.of(2L, 1L))).thenReturn(List.of(question(2L, "Is fire cold?")));
+        service.refreshCatalog();
+
+        assertNotEquals(before, service.searchETag("science", null, null, null, null, null, null));
+        assertTrue(service.getQuestionByIdDto(2L).isPresent());
+        assertTrue(service.getQuestionByIdDto(1L).isEmpty());
+        // Re-reads the overlap with the previous refresh.
+        verify(changeLog).othersSince(110_000L - 30_000L);
+        verify(questionRepository, times(1)).findAllWithAnswers();
+    }
+
+    @Test
+    void refreshCatalog_changesReadAgainInOverlap_shouldNotBeFetchedAgain() {
+        when(changeLog.now()).thenReturn(100_000L);
+        when(questionRepository.findAllWithAnswers()).thenReturn(List.of());
+        service.loadCatalog();
+        when(changeLog.othersSince(anyLong())).thenReturn(List.of(new QuestionChangeLog.Change(7, 2L, 101_000L)));
+        when(questionRepository.findAllByIdIn(List.of(2L))).thenReturn(List.of(question(2L, "Is fire cold?")));
+
+        when(changeLog.now()).thenReturn(110_000L);
+        service.refreshCatalog();
+        when(changeLog.now()).thenReturn(120_000L);
+        service.refreshCatalog();
+
+        verify(changeLog).othersSince(110_000L - 30_000L);
+        verify(questionRepository, times(1)).findAllByIdIn(any());
+        assertTrue(service.getQuestionByIdDto(2L).isPresent());
+    }
+
+    @Test
+    void refreshCatalog_behindPrunedChanges_shouldReloadEverything() {
+        when(changeLog.now()).thenReturn(100_000L);
+        when(questionRepository.findAllWithAnswers()).thenReturn(List.of(question(1L, "Is water wet?")));
+        service.loadCatalog();
+
+        when(changeLog.now()).thenReturn(100_000L + java.time.Duration.ofDays(2).toMillis());
+        when(questionRepository.findAllWithAnswers()).thenReturn(List.of(question(2L, "Is fire cold?")));
+        service.refreshCatalog();
+
+        verify(questionRepository, times(2)).findAllWithAnswers();
+        verify(changeLog, never()).othersSince(anyLong());
+        assertTrue(service.getQuestionByIdDto(1L).isEmpty());
+    }
+
+    @Test
+    void createQuestion_shouldLogTheWriteAndApplyItWithoutReloading() {
+        when(questionRepository.save(any(Question.class))).thenAnswer(inv -> {
+            Question q = inv.getArgument(0);
+            q.setId(5L);
+            return q;
+        });
+        when(questionRepository.findAllWithAnswers()).thenReturn(List.of());
+        service.loadCatalog();
+
+        service.createQuestion(new QuestionCreateDto("boolean", "easy", "Science", "Is water wet?", "True", List.of("False")));
+
+        verify(changeLog).record(List.of(5L));
+        assertTrue(service.getQuestionByIdDto(5L).isPresent());
+        verify(questionRepository, never()).findAllByIdIn(any());
+    }
+
+    @Test
+    void backfillContentHashes_shouldLeaveQuestionsWhoseContentIsStoredElsewhere() {
+        Question unique = question(1L, "Is water wet?");
+        Question copy = question(2L, "Is fire cold?");
+        Question sameBatchCopy = question(3L, "Is water wet?");
+        when(questionRepository.findIdsWithoutContentHash(eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 2L, 3L));
+        when(questionRepository.findAllByIdIn(List.of(1L, 2L, 3L))).thenReturn(List.of(unique, copy, sameBatchCopy));
+        when(questionRepository.findExistingContentHashes(anyCollection()))
+                .thenReturn(List.of(QuestionContentHash.of(copy)));
+
+        assertEquals(List.of(1L, 2L, 3L), service.backfillContentHashes(0L, 500));
+
+        assertEquals(QuestionContentHash.of(unique), unique.getContentHash());
+        assertNull(copy.getContentHash());
+        assertNull(sameBatchCopy.getContentHash());
+    }
+
+    @Test
+    void search_shouldKeepIdPageOrderAfterFetchingQuestions() {
+        when(questionRepository.searchIds(any(), any(), any(), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(3L, 1L, 2L), PageRequest.of(0, 3), 7));
+        // The second phase returns rows in any order, and one was deleted in between.
+        when(questionRepository.findAllByIdIn(List.of(3L, 1L, 2L)))
+                .thenReturn(List.of(question(1L, "One"), question(3L, "Three")));
+
+        Page<QuestionReadDto> page = service.search(null, null, null, null, 0, 3, "-question");
+
+        assertEquals(List.of(3L, 1L), page.getContent().stream().map(QuestionReadDto::id).toList());
+        assertEquals(7, page.getTotalElements());
+    }
+
+    @Test
+    void search_shouldFilterOnLowercasedKeysAndOrderByIdByDefault() {
+        when(questionRepository.searchIds(any(), any(), any(), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of()));
+
+        service.search(" Science ", "EASY", "Multiple", "  ", 2, 500, null);
+
+        ArgumentCaptor<Pageable> page = ArgumentCaptor.forClass(Pageable.class);
+        verify(questionRepository).searchIds(eq("science"), eq("easy"), eq("multiple"), page.capture());
+        assertEquals(2, page.getValue().getPageNumber());
+        assertEquals(100, page.getValue().getPageSize());
+        assertEquals(Sort.by(Sort.Direction.ASC, "id"), page.getValue().getSort());
+    }
+
+    @Test
+    void search_sortedByOtherProperty_shouldBreakTiesById() {
+        when(questionRepository.searchIds(any(), any(), any(), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of()));
+
+        service.search(null, null, null, null, 0, 20, "-category");
+
+        ArgumentCaptor<Pageable> page = ArgumentCaptor.forClass(Pageable.class);
+        verify(questionRepository).searchIds(isNull(), isNull(), isNull(), page.capture());
+        assertEquals(Sort.by(Sort.Direction.DESC, "category").and(Sort.by(Sort.Direction.ASC, "id")),
+                page.getValue().getSort());
+    }
+
+    @Test
+    void search_withTextFromCatalog_shouldOrderByIdUnlessRelevanceIsAsked() {
+        catalog.load(List.of(
+                dto(1L, "Which city is the capital of Spain?", "Madrid"),
+                dto(2L, "What is the capital of France?", "Paris"),
+                dto(3L, "Which river flows through Paris?", "Seine")));
+
+        Page<QuestionReadDto> byId = service.search(null, null, null, "paris", 0, 10, null);
+        Page<QuestionReadDto> byRelevance = service.search(null, null, null, "paris", 0, 10, "relevance");
+
+        assertEquals(List.of(2L, 3L), byId.getContent().stream().map(QuestionReadDto::id).toList());
+        assertEquals(Sort.by(Sort.Direction.ASC, "id"), byId.getPageable().getSort());
+        // A hit in the question text outweighs one in an answer.
+        assertEquals(List.of(3L, 2L), byRelevance.getContent().stream().map(QuestionReadDto::id).toList());
+        verifyNoInteractions(questionRepository);
+    }
+
+    @Test
+    void search_withTextBeforeCatalogLoads_shouldMatchTheSameWordsInTheDatabase() {
+        when(questionRepository.searchIdsByWords(any(), any(), any(), anyList(), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of()));
+
+        service.search("Geography", null, null, "  Capital, FRANCE!", 0, 10, "relevance");
+
+        ArgumentCaptor<Pageable> page = ArgumentCaptor.forClass(Pageable.class);
+        verify(questionRepository).searchIdsByWords(eq("geography"), isNull(), isNull(),
+                eq(List.of("capital", "france")), page.capture());
+        assertEquals(Sort.by(Sort.Direction.ASC, "id"), page.getValue().getSort());
+        verify(questionRepository, never()).searchIds(any(), any(), any(), any(Pageable.class));
+    }
+
+    @Test
+    void search_withTextWithoutWords_shouldFindNothingOnEitherPath() {
+        assertTrue(service.search(null, null, null, "?!", 0, 10, null).isEmpty());
+        catalog.load(List.of(dto(1L, "What is 2 + 2?", "4")));
+        assertTrue(service.search(null, null, null, "?!", 0, 10, null).isEmpty());
+        verifyNoInteractions(questionRepository);
+    }
+
+    private void loadCategories() {
+        catalog.load(List.of(
+                inCategory(1L, "History"), inCategory(2L, "Art"), inCategory(3L, "History"),
+                inCategory(4L, "Art"), inCategory(5L, "Science")));
+    }
+
+    private static QuestionReadDto inCategory(long id, String category) {
+        return new QuestionReadDto(id, "multiple", "easy", category, "Which one is it, " + id + "?", "A", List.of("B"));
+    }
+
+    private static List<Long> ids(QuestionCursorPage page) {
+        return page.content().stream().map(QuestionReadDto::id).toList();
+    }
+
+    @Test
+    void searchAfter_ascending_shouldWalkEveryMatchOnceAndBreakTiesById() {
+        loadCategories();
+
+        QuestionCursorPage first = service.searchAfter(null, null, null, "which", null, 2, "category");
+        QuestionCursorPage second = service.searchAfter(null, null, null, "which", first.next(), 2, "category");
+        QuestionCursorPage last = service.searchAfter(null, null, null, "which", second.next(), 2, "category");
+
+        assertEquals(List.of(2L, 4L), ids(first));
+        assertEquals(List.of(1L, 3L), ids(second));
+        assertEquals(List.of(5L), ids(last));
+        assertNull(last.next());
+    }
+
+    @Test
+    void searchAfter_descending_shouldWalkEveryMatchOnceAndBreakTiesById() {
+        loadCategories();
+
+        QuestionCursorPage first = service.searchAfter(null, null, null, "which", null, 2, "-category");
+        QuestionCursorPage second = service.searchAfter(null, null, null, "which", first.next(), 2, "-category");
+        QuestionCursorPage last = service.searchAfter(null, null, null, "which", second.next(), 2, "-category");
+
+        assertEquals(List.of(5L, 1L), ids(first));
+        assertEquals(List.of(3L, 2L), ids(second));
+        assertEquals(List.of(4L), ids(last));
+        assertNull(last.next());
+    }
+
+    @Test
+    void searchAfter_insertBeforeCursor_shouldNotShiftNextPage() {
+        loadCategories();
+        QuestionCursorPage first = service.searchAfter(null, null, null, "which", null, 2, "category");
+
+        catalog.put(inCategory(6L, "Animals"));
+        QuestionCursorPage second = service.searchAfter(null, null, null, "which", first.next(), 2, "category");
+
+        // Offset paging would repeat question 4 here.
+        assertEquals(List.of(1L, 3L), ids(second));
+    }
+
+    @Test
+    void searchAfter_database_shouldSeekFromLastRowOfPreviousPage() {
+        when(questionRepository.searchIdsAfter(any(), any(), any(), anyList(), anyString(), anyBoolean(), any(), any(), anyInt()))
+                .thenReturn(List.of(5L, 1L, 3L));
+        Question science = question(5L, "Which one?");
+        science.setCategory("Science");
+        Question history = question(1L, "Which other one?");
+        history.setCategory("History");
+        when(questionRepository.findAllByIdIn(List.of(5L, 1L))).thenReturn(List.of(history, science));
+
+        QuestionCursorPage first = service.searchAfter("Trivia", null, null, null, null, 2, "-category");
+        service.searchAfter("Trivia", null, null, null, first.next(), 2, "-category");
+
+        assertEquals(List.of(5L, 1L), ids(first));
+        verify(questionRepository).searchIdsAfter("trivia", null, null, List.of(), "category", true, null, null, 3);
+        verify(questionRepository).searchIdsAfter("trivia", null, null, List.of(), "category", true, "History", 1L, 3);
+    }
+
+    @Test
+    void searchAfter_database_idSort_shouldSeekOnIdAlone() {
+        when(questionRepository.searchIdsAfter(any(), any(), any(), anyList(), anyString(), anyBoolean(), any(), any(), anyInt()))
+                .thenReturn(List.of(9L, 8L));
+        when(questionRepository.findAllByIdIn(List.of(9L))).thenReturn(List.of(question(9L, "Which?")));
+
+        QuestionCursorPage first = service.searchAfter(null, null, null, null, null, 1, "-id");
+        service.searchAfter(null, null, null, null, first.next(), 1, "-id");
+
+        verify(questionRepository).searchIdsAfter(null, null, null, List.of(), "id", true, 9L, 9L, 2);
+    }
+
+    @Test
+    void searchAfter_tamperedOrForeignCursor_shouldBeRejected() {
+        loadCategories();
+        String next = service.searchAfter(null, null, null, "which", null, 2, "category").next();
+
+        for (String bad : List.of("not a cursor", next.substring(0, next.length() - 4), next + "AAAA")) {
+            ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                    () -> service.searchAfter(null, null, null, "which", bad, 2, "category"));
+            assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        }
+        ResponseStatusException otherSort = assertThrows(ResponseStatusException.class,
+                () -> service.searchAfter(null, null, null, "which", next, 2, "-category"));
+        assertEquals(HttpStatus.BAD_REQUEST, otherSort.getStatusCode());
+        assertThrows(ResponseStatusException.class,
+                () -> service.searchAfter(null, null, null, "which", null, 2, "contentHash"));
+    }
+
+    private static QuestionReadDto dto(long id, String text, String answer) {
+        return new QuestionReadDto(id, "multiple", "easy", "Geography", text, answer, List.of("Rome", "Berlin"));
+    }
+
+    private static Question question(long id, String text) {
+        Question q = new Question();
+        q.setId(id);
+        q.setType("boolean");
+        q.setDifficulty("easy");
+        q.setCategory("Science");
+        q.setQuestion(text);
+        q.setCorrectAnswer("True");
+        return q;
+    }
+
+    // The writer assigns ids, which the catalog needs once the import commits.
+    private void stubInserts() {
+        doAnswer(inv -> {
+            long id = 100;
+            for (Question q : inv.<List<Question>>getArgument(0)) q.setId(id++);
+            return null;
+        }).when(batchWriter).insertAll(anyList());
+        Cache cache = mock(Cache.class);
+        when(entityManagerFactory.getCache()).thenReturn(cache);
+        when(cache.unwrap(org.hibernate.Cache.class)).thenReturn(mock(org.hibernate.Cache.class));
+    }
+}
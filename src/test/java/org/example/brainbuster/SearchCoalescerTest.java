@@ -0,0 +1,77 @@
+package org.example.brainbuster;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.brainbuster.service.SearchCoalescer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchCoalescerTest {
+
+    private SimpleMeterRegistry registry;
+    private SearchCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        coalescer = new SearchCoalescer(registry);
+    }
+
+    private double calls(boolean coalesced) {
+        return registry.get("questions.search.calls").tag("coalesced", String.valueOf(coalesced)).counter().count();
+    }
+
+    @Test
+    void run_concurrentIdenticalKeys_shouldShareOneSearch() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger executions = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Callable<List<Long>> search = () -> coalescer.run("science", () -> {
+                executions.incrementAndGet();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return List.of(1L, 2L);
+            });
+            Future<List<Long>> leader = pool.submit(search);
+            while (executions.get() == 0) Thread.onSpinWait();
+            Future<List<Long>> follower = pool.submit(search);
+            while (calls(true) == 0) Thread.onSpinWait();
+            release.countDown();
+
+            assertSame(leader.get(5, TimeUnit.SECONDS), follower.get(5, TimeUnit.SECONDS));
+            assertEquals(1, executions.get());
+            assertEquals(1, calls(false));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void run_afterCompletion_shouldSearchAgain() {
+        AtomicInteger executions = new AtomicInteger();
+
+        coalescer.run("science", executions::incrementAndGet);
+        coalescer.run("science", executions::incrementAndGet);
+
+        assertEquals(2, executions.get());
+        assertEquals(0, calls(true));
+    }
+
+    @Test
+    void run_failure_shouldPropagateAndNotBeCached() {
+        assertThrows(IllegalArgumentException.class, () -> coalescer.run("bad", () -> {
+            throw new IllegalArgumentException("bad sort");
+        }));
+
+        assertEquals("ok", coalescer.run("bad", () -> "ok"));
+    }
+}
@@ -0,0 +1,134 @@
+package org.example.brainbuster;
+
+import org.example.brainbuster.model.SeenQuestions;
+import org.example.brainbuster.repository.SeenQuestionsRepository;
+import org.example.brainbuster.service.SeenQuestionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.LongPredicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SeenQuestionServiceTest {
+
+    @Mock
+    private SeenQuestionsRepository repository;
+
+    @InjectMocks
+    private SeenQuestionService service;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(repository.findById(anyString())).thenReturn(Optional.empty());
+        when(repository.insertIfAbsent(anyString(), any(), any())).thenReturn(1);
+        when(repository.updateIfVersion(anyString(), anyLong(), any(), any())).thenReturn(1);
+    }
+
+    private static byte[] bitmapOf(int... ids) throws IOException {
+        RoaringBitmap bitmap = RoaringBitmap.bitmapOf(ids);
+        var bytes = new ByteArrayOutputStream();
+        bitmap.serialize(new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    @Test
+    void markSeen_shouldBeVisibleToLaterPredicates() {
+        LongPredicate before = service.seenBy("alice");
+        service.markSeen("alice", List.of(3L, 7L));
+        LongPredicate after = service.seenBy("alice");
+
+        assertFalse(before.test(3L));
+        assertTrue(after.test(3L));
+        assertTrue(after.test(7L));
+        assertFalse(after.test(4L));
+        assertFalse(service.seenBy("bob").test(3L));
+    }
+
+    @Test
+    void forget_shouldClearOnlyGivenQuestions() {
+        service.markSeen("alice", List.of(1L, 2L, 3L));
+        service.forget("alice", new long[]{1L, 2L});
+
+        LongPredicate seen = service.seenBy("alice");
+        assertFalse(seen.test(1L));
+        assertTrue(seen.test(3L));
+    }
+
+    @Test
+    void markSeen_shouldBeWrittenBehindAndReloadFromRepository() {
+        service.markSeen("alice", List.of(42L));
+        verify(repository, never()).insertIfAbsent(anyString(), any(), any());
+
+        service.flush();
+        ArgumentCaptor<byte[]> saved = ArgumentCaptor.forClass(byte[].class);
+        verify(repository).insertIfAbsent(eq("alice"), saved.capture(), any());
+
+        SeenQuestionService fresh = new SeenQuestionService(repository);
+        when(repository.findById("alice")).thenReturn(Optional.of(
+                new SeenQuestions("alice", saved.getValue(), LocalDateTime.now(), 0)));
+
+        assertTrue(fresh.seenBy("alice").test(42L));
+    }
+
+    @Test
+    void flush_shouldMergeWithWhatOtherNodesStored() throws IOException {
+        service.markSeen("alice", List.of(1L, 2L));
+        service.forget("alice", new long[]{2L});
+        when(repository.findById("alice")).thenReturn(Optional.of(
+                new SeenQuestions("alice", bitmapOf(2, 5), LocalDateTime.now(), 7)));
+
+        service.flush();
+
+        verify(repository).updateIfVersion(eq("alice"), eq(7L), any(), any());
+        LongPredicate seen = service.seenBy("alice");
+        assertTrue(seen.test(1L));
+        assertTrue(seen.test(5L));
+        assertFalse(seen.test(2L));
+    }
+
+    @Test
+    void flush_whenRowChangedMeanwhile_shouldRetryOnFreshCopy() throws IOException {
+        service.markSeen("alice", List.of(1L));
+        when(repository.findById("alice")).thenReturn(
+                Optional.of(new SeenQuestions("alice", bitmapOf(5), LocalDateTime.now(), 1)),
+                Optional.of(new SeenQuestions("alice", bitmapOf(5, 6), LocalDateTime.now(), 2)));
+        when(repository.updateIfVersion(eq("alice"), eq(1L), any(), any())).thenReturn(0);
+
+        service.flush();
+
+        verify(repository).updateIfVersion(eq("alice"), eq(2L), any(), any());
+        assertTrue(service.seenBy("alice").test(6L));
+    }
+
+    @Test
+    void flush_whenSaveFails_shouldKeepChangesForNextRun() {
+        service.markSeen("alice", List.of(1L));
+        when(repository.insertIfAbsent(anyString(), any(), any())).thenThrow(new IllegalStateException("down"));
+        service.flush();
+        service.markSeen("alice", List.of(2L));
+
+        reset(repository);
+        when(repository.findById(anyString())).thenReturn(Optional.empty());
+        when(repository.insertIfAbsent(anyString(), any(), any())).thenReturn(1);
+        service.flush();
+
+        ArgumentCaptor<byte[]> saved = ArgumentCaptor.forClass(byte[].class);
+        verify(repository).insertIfAbsent(eq("alice"), saved.capture(), any());
+        SeenQuestionService fresh = new SeenQuestionService(repository);
+        when(repository.findById("alice")).thenReturn(Optional.of(
+                new SeenQuestions("alice", saved.getValue(), LocalDateTime.now(), 0)));
+        assertTrue(fresh.seenBy("alice").test(1L));
+        assertTrue(fresh.seenBy("alice").test(2L));
+    }
+}
@@ -4,6 +4,7 @@ import org.example.brainbuster.controller.SpGameController;
 import org.example.brainbuster.dto.game.*;
 import org.example.brainbuster.dto.game.QuestionPayload.Choice;
 import org.example.brainbuster.service.SpSessionService;
+import org.example.brainbuster.service.TokenSpSessionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
@@ -21,6 +22,9 @@ class SpGameControllerTest {
     @Mock
     private SpSessionService service;
 
+    @Mock
+    private TokenSpSessionService tokenSessions;
+
     @InjectMocks
     private SpGameController controller;
 
@@ -113,7 +117,7 @@ class SpGameControllerTest {
         UUID id = UUID.randomUUID();
         String choiceId = UUID.randomUUID().toString();
         AnswerRequest request = new AnswerRequest(choiceId);
-        when(service.answer(id, choiceId))
+        when(service.answer(id, choiceId, null))
                 .thenThrow(new ResponseStatusException(HttpStatus.CONFLICT, "Already answered"));
 
         assertThrows(ResponseStatusException.class, () -> controller.answer(id, request));
@@ -140,4 +144,95 @@ class SpGameControllerTest {
 
         assertThrows(ResponseStatusException.class, () -> controller.summary(id));
     }
+
+    @Test
+    void cancel_shouldDelegateWithPrincipal() {
+        UUID id = UUID.randomUUID();
+        var principal = mock(org.springframework.security.core.userdetails.UserDetails.class);
+        when(principal.getUsername()).thenReturn("alice");
+        when(service.cancel(id, "alice")).thenReturn(new SpSessionService.Summary(id, SessionState.CANCELLED, 2, 5, 2, 1));
+
+        SessionSummary result = controller.cancel(principal, id);
+
+        assertEquals(SessionState.CANCELLED, result.state());
+        assertEquals(2, result.answered());
+        verify(service).cancel(id, "alice");
+    }
+
+    @Test
+    void cancel_otherPlayersSession_shouldThrow403() {
+        UUID id = UUID.randomUUID();
+        var principal = mock(org.springframework.security.core.userdetails.UserDetails.class);
+        when(principal.getUsername()).thenReturn("bob");
+        when(service.cancel(id, "bob")).thenThrow(new ResponseStatusException(HttpStatus.FORBIDDEN));
+
+        assertThrows(ResponseStatusException.class, () -> controller.cancel(principal, id));
+    }
+
+    @Test
+    void abort_shouldReturnAbortedSummary() {
+        UUID id = UUID.randomUUID();
+        when(service.abort(id)).thenReturn(new SpSessionService.Summary(id, SessionState.ABORTED, 0, 5, 0, 0));
+
+        SessionSummary result = controller.abort(id);
+
+        assertEquals(SessionState.ABORTED, result.state());
+        verify(service).abort(id);
+    }
+
+    @Test
+    void create_tokenMode_shouldReturnToken() {
+        CreateSpSessionRequest request = new CreateSpSessionRequest(5, "General Knowledge", "EASY", SessionMode.TOKEN);
+        UUID sessionId = UUID.randomUUID();
+        var principal = mock(org.springframework.security.core.userdetails.UserDetails.class);
+        when(principal.getUsername()).thenReturn("alice");
+        when(tokenSessions.create(request, "alice"))
+                .thenReturn(new TokenSpSessionService.Issued(sessionId, SessionState.CREATED, 5, "signed"));
+
+        ResponseEntity<CreateSpSessionResponse> response = controller.create(principal, request);
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertEquals("signed", response.getBody().token());
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void answerWithToken_shouldDelegateToTokenSessions() {
+        UUID id = UUID.randomUUID();
+        var principal = mock(org.springframework.security.core.userdetails.UserDetails.class);
+        when(principal.getUsername()).thenReturn("alice");
+        AnswerResponse answer = new AnswerResponse(true, 4, null, SessionState.FINISHED, null, "next");
+        when(tokenSessions.answer(id, "signed", "alice", "c1")).thenReturn(answer);
+
+        AnswerResponse result = controller.answerWithToken(principal, id, "signed", new AnswerRequest("c1"));
+
+        assertEquals(answer, result);
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void active_shouldReturnPlayersSessions() {
+        UUID id = UUID.randomUUID();
+        var principal = mock(org.springframework.security.core.userdetails.UserDetails.class);
+        when(principal.getUsername()).thenReturn("alice");
+        when(service.active("alice")).thenReturn(List.of(new SpSessionService.Summary(id, SessionState.RUNNING, 3, 10, 3, 2)));
+
+        List<SessionSummary> result = controller.active(principal);
+
+        assertEquals(1, result.size());
+        assertEquals(id, result.get(0).sessionId());
+        assertEquals(3, result.get(0).currentIndex());
+    }
+
+    @Test
+    void submit_shouldDelegateToService() {
+        UUID id = UUID.randomUUID();
+        var principal = mock(org.springframework.security.core.userdetails.UserDetails.class);
+        when(principal.getUsername()).thenReturn("alice");
+        List<SubmitRequest.Answer> answers = List.of(new SubmitRequest.Answer(0, "c1", 4_000));
+        SubmitResponse response = new SubmitResponse(id, SessionState.FINISHED, 1, 1, List.of());
+        when(service.submit(id, "alice", answers)).thenReturn(response);
+
+        assertEquals(response, controller.submit(principal, id, new SubmitRequest(answers)));
+    }
 }
@@ -0,0 +1,64 @@
+package org.example.brainbuster;
+
+import org.example.brainbuster.dto.game.SessionState;
+import org.example.brainbuster.dto.question.QuestionReadDto;
+import org.example.brainbuster.service.SpSession;
+import org.example.brainbuster.service.SpSessionCodec;
+import org.junit.jupiter.api.Test;
+
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpSessionCodecTest {
+
+    @Test
+    void roundTrip_shouldKeepEveryField() {
+        List<QuestionReadDto> questions = List.of(
+                new QuestionReadDto(7L, "multiple", "hard", "Art", "Who painted \u201cGuernica\u201d?", "Picasso", List.of("Dal\u00ed", "Mir\u00f3")),
+                new QuestionReadDto(Long.MAX_VALUE, "boolean", "easy", "Science", "x".repeat(70_000), "True", List.of("False")));
+        SpSession s = new SpSession(UUID.randomUUID(), "alice", questions, true, 1_000L,
+                new SpSession.Progress(SessionState.RUNNING, 2, 1, 5));
+        s.touch(2_000L);
+
+        SpSession decoded = SpSessionCodec.decode(SpSessionCodec.encode(s));
+
+        assertEquals(s.id(), decoded.id());
+        assertEquals("alice", decoded.playerUsername());
+        assertEquals(questions, decoded.questions());
+        assertTrue(decoded.offline());
+        assertEquals(1_000L, decoded.createdAt());
+        assertEquals(2_000L, decoded.lastAccess());
+        assertEquals(s.progress(), decoded.progress());
+    }
+
+    @Test
+    void roundTrip_withAnonymousPlayerAndNoQuestions_shouldWork() {
+        SpSession s = new SpSession(null, List.of());
+
+        SpSession decoded = SpSessionCodec.decode(SpSessionCodec.encode(s));
+
+        assertNull(decoded.playerUsername());
+        assertTrue(decoded.questions().isEmpty());
+        assertFalse(decoded.offline());
+        assertEquals(SpSession.Progress.CREATED, decoded.progress());
+    }
+
+    @Test
+    void encode_withExplicitProgress_shouldStoreThatProgress() {
+        SpSession s = new SpSession("alice", List.of());
+        SpSession.Progress next = s.progress().next(SessionState.RUNNING, 1, 1);
+
+        SpSession decoded = SpSessionCodec.decode(SpSessionCodec.encode(s, next));
+
+        assertEquals(next, decoded.progress());
+        assertEquals(SpSession.Progress.CREATED, s.progress());
+    }
+
+    @Test
+    void decode_unknownFormat_shouldThrow() {
+        assertThrows(UncheckedIOException.class, () -> SpSessionCodec.decode(new byte[]{9, 0, 0}));
+    }
+}
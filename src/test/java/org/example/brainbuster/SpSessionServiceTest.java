@@ -0,0 +1,366 @@
+package org.example.brainbuster;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.brainbuster.config.JwtProperties;
+import org.example.brainbuster.config.SpSessionProperties;
+import org.example.brainbuster.dto.game.*;
+import org.example.brainbuster.dto.question.QuestionReadDto;
+import org.example.brainbuster.model.User;
+import org.example.brainbuster.repository.UserRepository;
+import org.example.brainbuster.service.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SpSessionServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private SeenQuestionService seenQuestions;
+
+    private final SpSessionProperties properties = new SpSessionProperties();
+    private final InMemorySessionStore store = new InMemorySessionStore();
+    private QuestionCatalog catalog;
+    private SpChoices choices;
+    private SpSessionService service;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(seenQuestions.seenBy(anyString())).thenReturn(id -> false);
+        when(userRepository.findByUsername(anyString())).thenReturn(Optional.empty());
+
+        catalog = new QuestionCatalog();
+        catalog.load(List.of(
+                new QuestionReadDto(1L, "multiple", "easy", "Science", "Q1", "A", List.of("B", "C", "D")),
+                new QuestionReadDto(2L, "multiple", "easy", "Science", "Q2", "A", List.of("B", "C", "D")),
+                new QuestionReadDto(3L, "boolean", "easy", "Science", "Q3", "A", List.of("B"))
+        ));
+        JwtProperties jwtProperties = new JwtProperties();
+        jwtProperties.setSecret(Base64.getEncoder().encodeToString(new byte[32]));
+        choices = new SpChoices(catalog, new JwtService(jwtProperties));
+        service = new SpSessionService(catalog, userRepository, seenQuestions, properties, store, choices, new SimpleMeterRegistry());
+    }
+
+    private UUID create(String player, int questions) {
+        return service.create(new CreateSpSessionRequest(questions, "Science", null), player).id();
+    }
+
+    private static String correctChoice(QuestionPayload q) {
+        return q.choices().stream().filter(c -> c.text().equals("A")).findFirst().orElseThrow().choiceId();
+    }
+
+    @Test
+    void answeringEveryQuestion_shouldFinishWithScore() {
+        UUID id = create("alice", 2);
+
+        QuestionPayload first = service.start(id);
+        AnswerResponse a1 = service.answer(id, correctChoice(first), null);
+        AnswerResponse a2 = service.answer(id, "wrong", null);
+
+        assertTrue(a1.correct());
+        assertEquals(SessionState.RUNNING, a1.state());
+        assertFalse(a2.correct());
+        assertEquals(SessionState.FINISHED, a2.state());
+        assertEquals(1, service.summary(id).correctAnswers());
+    }
+
+    @Test
+    void cancel_shouldFreeSessionImmediately() {
+        UUID id = create("alice", 2);
+        service.start(id);
+
+        SpSessionService.Summary summary = service.cancel(id, "alice");
+
+        assertEquals(SessionState.CANCELLED, summary.state());
+        assertTrue(store.local().isEmpty());
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> service.summary(id));
+        assertEquals(HttpStatus.NOT_FOUND, e.getStatusCode());
+    }
+
+    @Test
+    void cancel_byAnotherPlayer_shouldThrow403() {
+        UUID id = create("alice", 1);
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> service.cancel(id, "bob"));
+
+        assertEquals(HttpStatus.FORBIDDEN, e.getStatusCode());
+        assertEquals(1, store.local().size());
+    }
+
+    @Test
+    void expireSessions_shouldDropIdleSessions() throws InterruptedException {
+        create("alice", 1);
+        properties.setIdleTtl(Duration.ZERO);
+        Thread.sleep(5);
+
+        service.expireSessions();
+
+        assertTrue(store.local().isEmpty());
+    }
+
+    @Test
+    void create_atCapacity_shouldEvictLeastRecentlyUsed() throws InterruptedException {
+        properties.setMaxSessions(2);
+        UUID oldest = create("alice", 1);
+        Thread.sleep(5);
+        UUID used = create("bob", 1);
+        Thread.sleep(5);
+        service.summary(used);
+
+        UUID newest = create("carol", 1);
+
+        assertEquals(2, store.local().size());
+        assertThrows(ResponseStatusException.class, () -> service.summary(oldest));
+        assertNotNull(service.summary(newest));
+    }
+
+    @Test
+    void choices_shouldBeStableForASession() {
+        UUID id = create("alice", 2);
+
+        QuestionPayload started = service.start(id);
+
+        assertEquals(started, service.current(id));
+        assertEquals(started.choices().size(), started.choices().stream().map(QuestionPayload.Choice::choiceId).distinct().count());
+    }
+
+    @Test
+    void answer_forQuestionNoLongerCurrent_shouldThrow409() {
+        UUID id = create("alice", 2);
+        QuestionPayload first = service.start(id);
+        service.answer(id, correctChoice(first), 0);
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> service.answer(id, correctChoice(first), 0));
+
+        assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+        assertEquals(1, service.summary(id).answered());
+    }
+
+    @Test
+    void concurrentAnswers_shouldApplyEachQuestionExactlyOnce() throws Exception {
+        User user = new User();
+        user.setUsername("alice");
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user));
+        int games = 200;
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int g = 0; g < games; g++) {
+                UUID id = create("alice", 3);
+                service.start(id);
+                AtomicInteger accepted = new AtomicInteger();
+                CountDownLatch go = new CountDownLatch(1);
+                List<Future<?>> players = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    players.add(pool.submit(() -> {
+                        go.await();
+                        while (true) {
+                            QuestionPayload q;
+                            try {
+                                q = service.current(id);
+                            } catch (ResponseStatusException finished) {
+                                return null;
+                            }
+                            try {
+                                service.answer(id, correctChoice(q), q.index());
+                                accepted.incrementAndGet();
+                            } catch (ResponseStatusException lostRace) {
+                                assertEquals(HttpStatus.CONFLICT, lostRace.getStatusCode());
+                            }
+                        }
+                    }));
+                }
+                go.countDown();
+                for (Future<?> player : players) player.get(10, TimeUnit.SECONDS);
+
+                SpSessionService.Summary summary = service.summary(id);
+                assertEquals(3, accepted.get());
+                assertEquals(SessionState.FINISHED, summary.state());
+                assertEquals(3, summary.answered());
+                assertEquals(3, summary.correctAnswers());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        // The high score is looked up once per finished game, never twice.
+        verify(userRepository, times(games)).findByUsername("alice");
+        assertEquals(3, user.getHighScore());
+    }
+
+    @Test
+    void snapshot_shouldCarrySessionsAcrossRestart(@TempDir Path dir) {
+        properties.setSnapshotPath(dir.resolve("sessions.bin").toString());
+        UUID id = create("alice", 2);
+        QuestionPayload first = service.start(id);
+        service.answer(id, correctChoice(first), 0);
+        new SpSessionSnapshotLifecycle(store, properties).stop();
+
+        InMemorySessionStore restarted = new InMemorySessionStore();
+        new SpSessionSnapshotLifecycle(restarted, properties).start();
+        SpSessionService after = new SpSessionService(catalog, userRepository, seenQuestions, properties, restarted, choices,
+                new SimpleMeterRegistry());
+
+        SpSessionService.Summary summary = after.summary(id);
+        assertEquals(SessionState.RUNNING, summary.state());
+        assertEquals(1, summary.correctAnswers());
+        assertEquals(service.current(id), after.current(id));
+        assertFalse(Files.exists(dir.resolve("sessions.bin")));
+    }
+
+    @Test
+    void active_shouldListOnlyThePlayersUnfinishedSessions() {
+        UUID finished = create("alice", 1);
+        service.start(finished);
+        service.answer(finished, "wrong", 0);
+        UUID running = create("alice", 1);
+        create("bob", 1);
+
+        List<SpSessionService.Summary> active = service.active("alice");
+
+        assertEquals(List.of(running), active.stream().map(SpSessionService.Summary::id).toList());
+    }
+
+    @Test
+    void create_beyondPlayerLimit_shouldCancelLeastRecentlyUsed() throws InterruptedException {
+        properties.setMaxActivePerPlayer(2);
+        UUID oldest = create("alice", 1);
+        Thread.sleep(5);
+        UUID other = create("alice", 1);
+
+        UUID newest = create("alice", 1);
+
+        assertEquals(Set.of(other, newest), new HashSet<>(service.active("alice").stream().map(SpSessionService.Summary::id).toList()));
+        assertThrows(ResponseStatusException.class, () -> service.summary(oldest));
+    }
+
+    @Test
+    void create_beyondPlayerLimit_withRejectPolicy_shouldThrow429() {
+        properties.setMaxActivePerPlayer(1);
+        properties.setPlayerLimitPolicy(SpSessionProperties.PlayerLimitPolicy.REJECT);
+        create("alice", 1);
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> create("alice", 1));
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, e.getStatusCode());
+        assertEquals(1, service.active("alice").size());
+        assertNotNull(create("bob", 1));
+    }
+
+    @Test
+    void offlineSubmit_shouldScoreOnceAndRevealSaltsMatchingCommitments() {
+        properties.setOfflineMinAnswerTime(Duration.ZERO);
+        SpSessionService.OfflineCreated created = service.createOffline(
+                new CreateSpSessionRequest(2, "Science", null, SessionMode.OFFLINE), "alice");
+        assertEquals(2, created.deck().size());
+
+        List<SubmitRequest.Answer> answers = new ArrayList<>();
+        for (OfflineQuestion q : created.deck()) {
+            String choice = q.question().index() == 0 ? correctChoice(q.question()) : "wrong";
+            answers.add(new SubmitRequest.Answer(q.question().index(), choice, 0));
+        }
+        SubmitResponse response = service.submit(created.id(), "alice", answers);
+
+        assertEquals(1, response.correctAnswers());
+        assertEquals(SessionState.FINISHED, response.state());
+        for (SubmitResponse.Result r : response.results()) {
+            OfflineQuestion q = created.deck().get(r.index());
+            for (int i = 0; i < q.question().choices().size(); i++) {
+                String choiceId = q.question().choices().get(i).choiceId();
+                assertEquals(q.commitments().get(i),
+                        SpChoices.commitment(r.salts().get(i), choiceId, choiceId.equals(r.correctChoiceId())));
+            }
+        }
+        ResponseStatusException again = assertThrows(ResponseStatusException.class,
+                () -> service.submit(created.id(), "alice", answers));
+        assertEquals(HttpStatus.CONFLICT, again.getStatusCode());
+    }
+
+    @Test
+    void questionsEditedOrRemovedInTheBank_shouldNotChangeAGameInProgress() {
+        UUID id = create("alice", 2);
+        QuestionPayload first = service.start(id);
+        catalog.remove(first.questionId());
+        for (long other = 1; other <= 3; other++) {
+            if (other != first.questionId()) {
+                catalog.put(new QuestionReadDto(other, "boolean", "easy", "Science", "Edited", "Z", List.of("Y")));
+            }
+        }
+
+        assertEquals(first, service.current(id));
+        AnswerResponse a1 = service.answer(id, correctChoice(first), null);
+        assertTrue(a1.correct());
+        assertNotEquals("Edited", a1.next().prompt());
+        AnswerResponse a2 = service.answer(id, correctChoice(a1.next()), null);
+        assertTrue(a2.correct());
+        assertEquals(2, service.summary(id).correctAnswers());
+    }
+
+    @Test
+    void offlineSubmit_afterQuestionsWereRemoved_shouldScoreTheDealtDeck() {
+        properties.setOfflineMinAnswerTime(Duration.ZERO);
+        SpSessionService.OfflineCreated created = service.createOffline(
+                new CreateSpSessionRequest(2, "Science", null, SessionMode.OFFLINE), "alice");
+        created.deck().forEach(q -> catalog.remove(q.question().questionId()));
+
+        List<SubmitRequest.Answer> answers = created.deck().stream()
+                .map(q -> new SubmitRequest.Answer(q.question().index(), correctChoice(q.question()), 0))
+                .toList();
+        SubmitResponse response = service.submit(created.id(), "alice", answers);
+
+        assertEquals(2, response.correctAnswers());
+    }
+
+    @Test
+    void offlineSubmit_withImplausibleTimings_shouldThrow422() {
+        UUID id = service.createOffline(new CreateSpSessionRequest(1, "Science", null, SessionMode.OFFLINE), "alice").id();
+
+        ResponseStatusException tooFast = assertThrows(ResponseStatusException.class,
+                () -> service.submit(id, "alice", List.of(new SubmitRequest.Answer(0, "c", 1))));
+        ResponseStatusException tooSlow = assertThrows(ResponseStatusException.class,
+                () -> service.submit(id, "alice", List.of(new SubmitRequest.Answer(0, "c", 60_000))));
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, tooFast.getStatusCode());
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, tooSlow.getStatusCode());
+        assertEquals(SessionState.RUNNING, service.summary(id).state());
+    }
+
+    @Test
+    void answer_onOfflineSession_shouldThrow409() {
+        UUID id = service.createOffline(new CreateSpSessionRequest(1, "Science", null, SessionMode.OFFLINE), "alice").id();
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> service.answer(id, "c", 0));
+
+        assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+    }
+
+    @Test
+    void create_withFewUnseenLeft_shouldDealThoseAndFillFromResetHistory() {
+        when(seenQuestions.seenBy("alice")).thenReturn(id -> id != 3L);
+
+        SpSessionService.OfflineCreated created = service.createOffline(
+                new CreateSpSessionRequest(2, "Science", null, SessionMode.OFFLINE), "alice");
+
+        List<Long> dealt = created.deck().stream().map(q -> q.question().questionId()).toList();
+        assertEquals(2, dealt.size());
+        assertTrue(dealt.contains(3L), "unseen question missing from " + dealt);
+        assertEquals(2, new HashSet<>(dealt).size());
+        verify(seenQuestions).forget(eq("alice"), any(long[].class));
+    }
+}
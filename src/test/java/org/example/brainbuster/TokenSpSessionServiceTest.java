@@ -0,0 +1,190 @@
+package org.example.brainbuster;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.brainbuster.config.JwtProperties;
+import org.example.brainbuster.config.SpSessionProperties;
+import org.example.brainbuster.dto.game.*;
+import org.example.brainbuster.dto.question.QuestionReadDto;
+import org.example.brainbuster.repository.UserRepository;
+import org.example.brainbuster.service.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TokenSpSessionServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private SeenQuestionService seenQuestions;
+
+    private final SpSessionProperties properties = new SpSessionProperties();
+    private JwtService jwtService;
+    private QuestionCatalog catalog;
+    private TokenSpSessionService service;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(seenQuestions.seenBy(anyString())).thenReturn(id -> false);
+        when(userRepository.findByUsername(anyString())).thenReturn(Optional.empty());
+
+        catalog = new QuestionCatalog();
+        catalog.load(List.of(
+                new QuestionReadDto(1L, "multiple", "easy", "Science", "Q1", "A", List.of("B", "C", "D")),
+                new QuestionReadDto(2L, "boolean", "easy", "Science", "Q2", "A", List.of("B"))
+        ));
+        JwtProperties jwtProperties = new JwtProperties();
+        jwtProperties.setSecret(Base64.getEncoder().encodeToString(new byte[32]));
+        jwtService = new JwtService(jwtProperties);
+        SpChoices choices = new SpChoices(catalog, jwtService);
+        SpSessionService sessions = new SpSessionService(catalog, userRepository, seenQuestions, properties,
+                new InMemorySessionStore(), choices, new SimpleMeterRegistry());
+        service = new TokenSpSessionService(sessions, choices, jwtService, properties);
+    }
+
+    private TokenSpSessionService.Issued create(String player) {
+        return service.create(new CreateSpSessionRequest(2, "Science", null, SessionMode.TOKEN), player);
+    }
+
+    private static String correctChoice(QuestionPayload q) {
+        return q.choices().stream().filter(c -> c.text().equals("A")).findFirst().orElseThrow().choiceId();
+    }
+
+    private static HttpStatus status(ResponseStatusException e) {
+        return HttpStatus.valueOf(e.getStatusCode().value());
+    }
+
+    @Test
+    void answeringEveryQuestion_shouldFinishWithScore() {
+        var issued = create("alice");
+        StartSpResponse started = service.start(issued.id(), issued.token(), "alice");
+
+        AnswerResponse first = service.answer(issued.id(), started.token(), "alice", correctChoice(started.current()));
+        AnswerResponse last = service.answer(issued.id(), first.token(), "alice", "wrong");
+
+        assertTrue(first.correct());
+        assertFalse(last.correct());
+        assertEquals(SessionState.FINISHED, last.state());
+        var summary = service.summary(issued.id(), last.token(), "alice");
+        assertEquals(1, summary.correctAnswers());
+        assertEquals(2, summary.answered());
+    }
+
+    @Test
+    void questionRemovedFromBank_shouldBeVoidAndLetTheGameGoOn() {
+        var issued = create("alice");
+        StartSpResponse started = service.start(issued.id(), issued.token(), "alice");
+        catalog.remove(started.current().questionId());
+
+        QuestionPayload removed = service.current(issued.id(), started.token(), "alice");
+        assertEquals(started.current().questionId(), removed.questionId());
+        assertEquals(1, removed.choices().size());
+        AnswerResponse first = service.answer(issued.id(), started.token(), "alice", removed.choices().get(0).choiceId());
+        AnswerResponse last = service.answer(issued.id(), first.token(), "alice", correctChoice(first.next()));
+
+        assertFalse(first.correct());
+        assertTrue(last.correct());
+        assertEquals(1, service.summary(issued.id(), last.token(), "alice").correctAnswers());
+    }
+
+    @Test
+    void answer_replayingConsumedToken_shouldThrow409() {
+        var issued = create("alice");
+        StartSpResponse started = service.start(issued.id(), issued.token(), "alice");
+        String choice = correctChoice(started.current());
+        service.answer(issued.id(), started.token(), "alice", choice);
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> service.answer(issued.id(), started.token(), "alice", choice));
+
+        assertEquals(HttpStatus.CONFLICT, status(e));
+    }
+
+    @Test
+    void finishedToken_shouldNotStartOrAnswerAgain() {
+        var issued = create("alice");
+        StartSpResponse started = service.start(issued.id(), issued.token(), "alice");
+        AnswerResponse first = service.answer(issued.id(), started.token(), "alice", "x");
+        String finished = service.answer(issued.id(), first.token(), "alice", "x").token();
+
+        assertEquals(HttpStatus.CONFLICT, status(assertThrows(ResponseStatusException.class,
+                () -> service.answer(issued.id(), finished, "alice", "x"))));
+        assertEquals(HttpStatus.CONFLICT, status(assertThrows(ResponseStatusException.class,
+                () -> service.start(issued.id(), finished, "alice"))));
+    }
+
+    @Test
+    void tamperedToken_shouldThrow400() {
+        var issued = create("alice");
+        StartSpResponse started = service.start(issued.id(), issued.token(), "alice");
+        String[] parts = started.token().split("\\.");
+        String payload = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8);
+        String forged = payload.replace("\"c\":0", "\"c\":2");
+        assertNotEquals(payload, forged);
+        String tampered = parts[0] + "." + Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(forged.getBytes(StandardCharsets.UTF_8)) + "." + parts[2];
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> service.summary(issued.id(), tampered, "alice"));
+
+        assertEquals(HttpStatus.BAD_REQUEST, status(e));
+    }
+
+    @Test
+    void expiredToken_shouldThrow400() {
+        UUID id = UUID.randomUUID();
+        Map<String, Object> state = Map.of("q", TokenSpSessionService.encodeIds(new long[]{1, 2}),
+                "i", 0, "c", 0, "s", SessionState.RUNNING.name());
+        String expired = jwtService.generateSpSessionToken("alice", id.toString(), state, Duration.ofSeconds(-1));
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> service.current(id, expired, "alice"));
+
+        assertEquals(HttpStatus.BAD_REQUEST, status(e));
+    }
+
+    @Test
+    void tokenOfAnotherSession_shouldThrow400() {
+        var issued = create("alice");
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> service.start(UUID.randomUUID(), issued.token(), "alice"));
+
+        assertEquals(HttpStatus.BAD_REQUEST, status(e));
+    }
+
+    @Test
+    void tokenOfAnotherPlayer_shouldThrow403() {
+        var issued = create("alice");
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> service.start(issued.id(), issued.token(), "mallory"));
+
+        assertEquals(HttpStatus.FORBIDDEN, status(e));
+    }
+
+    @Test
+    void encodeIds_shouldRoundTripAnyOrderAndSize() {
+        long[][] decks = {
+                {},
+                {1},
+                {5, 4, 3, 2, 1},
+                {1_000_000_007L, 3, Integer.MAX_VALUE + 10L, 0, Long.MAX_VALUE, 42},
+                {Long.MAX_VALUE, 1, Long.MAX_VALUE - 1}
+        };
+        for (long[] ids : decks) {
+            assertArrayEquals(ids, TokenSpSessionService.decodeIds(TokenSpSessionService.encodeIds(ids)));
+        }
+    }
+}